@@ -0,0 +1,85 @@
+package ru.practicum.shareit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочное сравнение платформенных потоков Tomcat с пулом Hikari по умолчанию и профиля virtual.
+ * Приложение поднимается с настоящим Tomcat на случайном порту, 256 клиентских потоков без пауз
+ * запрашивают список бронирований пользователя (несколько запросов к базе на каждый вызов).
+ * Режим SampleTime даёт перцентили задержки, Throughput — число запросов в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(256)
+@Fork(1)
+public class ThreadModelLoadBenchmark {
+    private static final int BOOKINGS = 20;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .profiles("virtual".equals(threads) ? new String[]{"virtual"} : new String[0])
+                .run("--logging.level.root=WARN", "--server.port=0");
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner", "owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "booker@mail.ru"));
+        Item item = context.getBean(ItemRepository.class)
+                .save(new Item(null, "item", "description", true, owner, null));
+        BookingService bookingService = context.getBean(BookingService.class);
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            bookingService.create(BookingDto.builder()
+                    .itemId(item.getId())
+                    .start(base.plusHours(2L * i))
+                    .end(base.plusHours(2L * i + 1))
+                    .build(), booker.getId());
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings?state=ALL&size=" + BOOKINGS))
+                .header("X-Sharer-User-Id", String.valueOf(booker.getId()))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int bookerBookings() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
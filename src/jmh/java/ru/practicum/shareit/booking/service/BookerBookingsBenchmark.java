@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSlice;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingServiceImpl.getAllByBooker на H2 из тестового профиля: у автора bookings бронирований
+ * по items вещам. Размер набора задаётся параметрами, например -Djmh.args="-p bookings=100000".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookerBookingsBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000"})
+    private int bookings;
+
+    @Param({"50"})
+    private int items;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private Long bookerId;
+    private BookingCursor middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN");
+        bookingService = context.getBean(BookingService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner", "owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "booker@mail.ru"));
+        bookerId = booker.getId();
+
+        List<Item> itemList = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            itemList.add(new Item(null, "item " + i, "description", true, owner, null));
+        }
+        itemList = context.getBean(ItemRepository.class).saveAll(itemList);
+
+        // Бронирования идут по часу подряд, половина в прошлом, половина в будущем.
+        BookingRepository bookingRepository = context.getBean(BookingRepository.class);
+        LocalDateTime base = LocalDateTime.now().minusHours(bookings / 2);
+        BookingStatus[] statuses = BookingStatus.values();
+        List<Booking> batch = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            batch.add(new Booking(null, base.plusHours(i), base.plusHours(i).plusMinutes(30),
+                    itemList.get(i % items), booker, statuses[i % statuses.length], null));
+            if (batch.size() == 1000) {
+                bookingRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        bookingRepository.saveAll(batch);
+
+        List<BookingResponseDto> firstPage = bookingService.getAllByBooker(bookerId, "ALL", bookings / 2, 1);
+        middle = BookingCursor.of(firstPage.get(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> firstPage() {
+        return bookingService.getAllByBooker(bookerId, "ALL", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> middlePageByOffset() {
+        return bookingService.getAllByBooker(bookerId, "ALL", bookings / 2, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BookingSlice middlePageByCursor() {
+        return bookingService.getAllByBooker(bookerId, "ALL", middle, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> pastState() {
+        return bookingService.getAllByBooker(bookerId, "PAST", 0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.booking.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Создание и подтверждение batchSize бронирований: по одному вызову на бронирование
+ * против одного пакетного вызова на создание и одного на подтверждение. База - H2 из тестового профиля.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBatchBenchmark {
+    @Param({"10", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+    private LocalDateTime base;
+    private long slot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN");
+        bookingService = context.getBean(BookingService.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner", "owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "booker@mail.ru"));
+        Item item = context.getBean(ItemRepository.class)
+                .save(new Item(null, "item", "description", true, owner, null));
+        ownerId = owner.getId();
+        bookerId = booker.getId();
+        itemId = item.getId();
+        base = LocalDateTime.now().plusDays(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int singleCalls() {
+        for (BookingDto booking : nextSlots()) {
+            Long id = bookingService.create(booking, bookerId).getId();
+            bookingService.approve(id, ownerId, true);
+        }
+        return batchSize;
+    }
+
+    @Benchmark
+    public int batchCalls() {
+        List<Long> ids = bookingService.createAll(nextSlots(), bookerId).stream()
+                .map(BookingBatchEntryDto::getId)
+                .collect(Collectors.toList());
+        return bookingService.approveAll(ids, ownerId, true).size();
+    }
+
+    private List<BookingDto> nextSlots() {
+        List<BookingDto> bookings = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            LocalDateTime start = base.plusHours(2 * slot++);
+            bookings.add(BookingDto.builder()
+                    .itemId(itemId)
+                    .start(start)
+                    .end(start.plusHours(1))
+                    .build());
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение триграммного индекса с полным перебором, которым по сути был LIKE '%text%'.
+ * Словарь растёт вместе с каталогом, поэтому число совпадений на запрос остаётся примерно постоянным.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ItemSearchIndexBenchmark {
+    private static final int WORDS_PER_ITEM = 8;
+
+    @Param({"10000", "100000", "1000000"})
+    private int itemCount;
+
+    private ItemSearchIndex index;
+    private List<ItemSearchDocument> documents;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[Math.max(100, itemCount / 10)];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        index = new ItemSearchIndex(null);
+        documents = new ArrayList<>(itemCount);
+        for (long id = 1; id <= itemCount; id++) {
+            ItemSearchDocument document = new ItemSearchDocument(id,
+                    phrase(random, vocabulary, 2), phrase(random, vocabulary, WORDS_PER_ITEM), true);
+            index.put(document);
+            documents.add(document);
+        }
+        query = vocabulary[vocabulary.length / 2].toLowerCase();
+    }
+
+    @Benchmark
+    public List<Long> trigramIndex() {
+        return index.search(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Long> fullScan() {
+        SearchPattern pattern = SearchPattern.of(query);
+        List<Long> result = new ArrayList<>();
+        for (ItemSearchDocument document : documents) {
+            if (document.matches(pattern)) {
+                result.add(document.getId());
+            }
+        }
+        return result;
+    }
+
+    private static String phrase(Random random, String[] vocabulary, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String randomWord(Random random) {
+        int length = 6 + random.nextInt(4);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.item.service;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Раскладка бронирований и отзывов по вещам в getAllItemsByOwner ({@link ItemServiceImpl#assemble})
+ * без запросов к базе: items вещей, у каждой последнее и следующее бронирование и commentsPerItem отзывов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemGroupingBenchmark {
+    @Param({"10", "100", "1000"})
+    private int items;
+
+    @Param({"5"})
+    private int commentsPerItem;
+
+    private List<Item> page;
+    private List<ItemBookingView> bookings;
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        User owner = new User(1L, "owner", "owner@mail.ru");
+        User author = new User(2L, "author", "author@mail.ru");
+        LocalDateTime now = LocalDateTime.now();
+        page = new ArrayList<>(items);
+        bookings = new ArrayList<>(items * 2);
+        comments = new ArrayList<>(items * commentsPerItem);
+        long id = 0;
+        for (long itemId = 1; itemId <= items; itemId++) {
+            Item item = new Item(itemId, "item " + itemId, "description", true, owner, null);
+            page.add(item);
+            bookings.add(new View(itemId, ++id, now.minusDays(2), now.minusDays(1), true));
+            bookings.add(new View(itemId, ++id, now.plusDays(1), now.plusDays(2), false));
+            for (int i = 0; i < commentsPerItem; i++) {
+                comments.add(new Comment(++id, "comment " + i, item, author, now));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ItemWithBookingsDto> assemble() {
+        return ItemServiceImpl.assemble(page, bookings, comments);
+    }
+
+    private record View(Long itemId, Long id, LocalDateTime startDate, LocalDateTime endDate, boolean last)
+            implements ItemBookingView {
+        @Override
+        public Long getItemId() {
+            return itemId;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getBookerId() {
+            return 2L;
+        }
+
+        @Override
+        public LocalDateTime getStartDate() {
+            return startDate;
+        }
+
+        @Override
+        public LocalDateTime getEndDate() {
+            return endDate;
+        }
+
+        @Override
+        public boolean isLast() {
+            return last;
+        }
+    }
+}
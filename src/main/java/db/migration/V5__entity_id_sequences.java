@@ -0,0 +1,51 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Последовательности для пулов идентификаторов (GenerationType.SEQUENCE, pooled-lo, шаг 50).
+ * Начальное значение зависит от уже выданных IDENTITY-ключей, поэтому миграция написана на Java:
+ * START WITH в SQL принимает только константу, а setval есть не во всех поддерживаемых СУБД.
+ * <p>
+ * IDENTITY со столбцов id снимается, а значением по умолчанию становится та же последовательность.
+ * Иначе вставка без id (скрипты, пакетная вставка через JDBC) брала бы ключ у IDENTITY, который
+ * не продвигался вместе с последовательностью, и столкнулась бы с id из пулов Hibernate.
+ * Такая вставка забирает целый блок из 50 значений, но пересечься с пулами не может.
+ */
+public class V5__entity_id_sequences extends BaseJavaMigration {
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "requests", "requests_seq",
+            "items", "items_seq",
+            "bookings", "bookings_seq",
+            "comments", "comments_seq");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        boolean postgres = "PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName());
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (Map.Entry<String, String> sequence : SEQUENCES.entrySet()) {
+                long start;
+                String query = "SELECT COALESCE(MAX(id), 0) + 1 FROM " + sequence.getKey();
+                try (ResultSet maxId = statement.executeQuery(query)) {
+                    maxId.next();
+                    start = maxId.getLong(1);
+                }
+                statement.execute("CREATE SEQUENCE " + sequence.getValue()
+                        + " START WITH " + start + " INCREMENT BY " + ALLOCATION_SIZE);
+                String nextValue = postgres
+                        ? "nextval('" + sequence.getValue() + "')"
+                        : "NEXT VALUE FOR " + sequence.getValue();
+                statement.execute("ALTER TABLE " + sequence.getKey() + " ALTER COLUMN id DROP IDENTITY");
+                statement.execute("ALTER TABLE " + sequence.getKey() + " ALTER COLUMN id SET DEFAULT " + nextValue);
+            }
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSlice;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.VersionStamp;
+import ru.practicum.shareit.common.metrics.QueryBudget;
 import java.util.List;
+import java.util.function.Supplier;
 
 
 @RestController
@@ -14,6 +22,7 @@ import java.util.List;
 public class BookingController {
     private final BookingService bookingService;
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @PostMapping
     public BookingResponseDto create(@RequestBody BookingDto bookingDto,
@@ -21,6 +30,24 @@ public class BookingController {
         return bookingService.create(bookingDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchEntryDto> createAll(@RequestBody List<BookingDto> bookingDtos,
+                                                @RequestHeader(USER_ID_HEADER) Long userId) {
+        return bookingService.createAll(bookingDtos, userId);
+    }
+
+    @PatchMapping("/batch")
+    public List<BookingBatchEntryDto> approveAll(@RequestBody List<Long> bookingIds,
+                                                 @RequestParam Boolean approved,
+                                                 @RequestHeader(USER_ID_HEADER) Long userId) {
+        return bookingService.approveAll(bookingIds, userId, approved);
+    }
+
+    /**
+     * Подтверждение или отклонение. Если бронирование уже подтверждено или отклонено, ответ 400.
+     * 409 возвращается, только если другое решение было принято одновременно с этим запросом и успело первым.
+     * В пакетном PATCH /bookings/batch у записей те же статусы.
+     */
     @PatchMapping("/{bookingId}")
     public BookingResponseDto approve(@PathVariable Long bookingId,
                                       @RequestParam Boolean approved,
@@ -29,26 +56,87 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public BookingResponseDto getById(@PathVariable Long bookingId,
-                                      @RequestHeader(USER_ID_HEADER) Long userId) {
-        return bookingService.getById(bookingId, userId);
+    @QueryBudget(2)
+    public ResponseEntity<BookingResponseDto> getById(@PathVariable Long bookingId,
+                                                      @RequestHeader(USER_ID_HEADER) Long userId,
+                                                      WebRequest request) {
+        String etag = etag(() -> bookingService.getVersion(bookingId, userId), "b");
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        return withEtag(ResponseEntity.ok(), etag)
+                .body(bookingService.getById(bookingId, userId));
     }
 
     @GetMapping
-    public List<BookingResponseDto> getAllByBooker(
+    @QueryBudget(2)
+    public ResponseEntity<List<BookingResponseDto>> getAllByBooker(
             @RequestHeader(USER_ID_HEADER) Long userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllByBooker(userId, state, from, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request) {
+        String etag = BookingState.from(state).dependsOnTime()
+                ? null
+                : etag(() -> bookingService.getAllVersionByBooker(userId), "booker");
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        if (after != null) {
+            return toResponse(bookingService.getAllByBooker(userId, state, BookingCursor.parse(after), size), etag);
+        }
+        return toResponse(bookingService.getAllByBooker(userId, state, from, size), size, etag);
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getAllByOwner(
+    @QueryBudget(2)
+    public ResponseEntity<List<BookingResponseDto>> getAllByOwner(
             @RequestHeader(USER_ID_HEADER) Long userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getAllByOwner(userId, state, from, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            WebRequest request) {
+        String etag = BookingState.from(state).dependsOnTime()
+                ? null
+                : etag(() -> bookingService.getAllVersionByOwner(userId), "owner");
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        if (after != null) {
+            return toResponse(bookingService.getAllByOwner(userId, state, BookingCursor.parse(after), size), etag);
+        }
+        return toResponse(bookingService.getAllByOwner(userId, state, from, size), size, etag);
+    }
+
+    /**
+     * ETag по отпечатку бронирований, видимых пользователю. Для пустого набора ETag не выдаётся,
+     * чтобы 404 о несуществующем пользователе или бронировании не превращался в 304.
+     */
+    private static String etag(Supplier<VersionStamp> stamp, String scope) {
+        VersionStamp version = stamp.get();
+        return version.isEmpty() ? null : version.toEtag(scope);
+    }
+
+    private static ResponseEntity.BodyBuilder withEtag(ResponseEntity.BodyBuilder response, String etag) {
+        return etag == null ? response : response.eTag(etag);
+    }
+
+    private ResponseEntity<List<BookingResponseDto>> toResponse(BookingSlice slice, String etag) {
+        ResponseEntity.BodyBuilder response = withEtag(ResponseEntity.ok(), etag);
+        if (slice.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, slice.getNext().asString());
+        }
+        return response.body(slice.getContent());
+    }
+
+    private ResponseEntity<List<BookingResponseDto>> toResponse(List<BookingResponseDto> page, int size,
+                                                                String etag) {
+        ResponseEntity.BodyBuilder response = withEtag(ResponseEntity.ok(), etag);
+        if (page.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.of(page.get(size - 1)).asString());
+        }
+        return response.body(page);
     }
 }
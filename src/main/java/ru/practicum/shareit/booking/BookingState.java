@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public enum BookingState {
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED;
+
+    private static final Map<String, BookingState> BY_NAME = new HashMap<>();
+
+    static {
+        for (BookingState state : values()) {
+            BY_NAME.put(state.name(), state);
+            BY_NAME.put(state.name().toLowerCase(Locale.ROOT), state);
+        }
+    }
+
+    /**
+     * Состав выборки меняется со временем, даже если бронирования не изменялись.
+     */
+    public boolean dependsOnTime() {
+        return this == CURRENT || this == PAST || this == FUTURE;
+    }
+
+    public static BookingState from(String value) {
+        BookingState state = BY_NAME.get(value);
+        if (state == null && value != null) {
+            state = BY_NAME.get(value.toUpperCase(Locale.ROOT));
+        }
+        if (state == null) {
+            throw new ValidationException("Unknown state: " + value);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат одной записи пакетного запроса. status - HTTP-код, который вернул бы одиночный вызов,
+ * при ошибке booking пуст, а error содержит её текст. Записи идут в порядке запроса.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchEntryDto {
+    private Long id;
+    private int status;
+    private BookingResponseDto booking;
+    private String error;
+}
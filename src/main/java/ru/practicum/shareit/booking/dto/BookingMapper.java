@@ -32,6 +32,15 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingShortDto toBookingShortDto(ItemBookingView view) {
+        return BookingShortDto.builder()
+                .id(view.getId())
+                .bookerId(view.getBookerId())
+                .start(view.getStartDate())
+                .end(view.getEndDate())
+                .build();
+    }
+
     public static BookingDto toBookingDto(Booking booking) {
         return BookingDto.builder()
                 .id(booking.getId())
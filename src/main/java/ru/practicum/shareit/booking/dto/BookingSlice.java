@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookingSlice {
+    private List<BookingResponseDto> content;
+    private BookingCursor next;
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
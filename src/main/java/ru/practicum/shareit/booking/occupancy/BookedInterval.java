@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.occupancy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Занятый бронированием интервал вещи, как он хранится в {@link ItemOccupancyIndex}.
+ */
+@Getter
+@AllArgsConstructor
+public class BookedInterval {
+    private final Long bookingId;
+    private final Long itemId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+}
@@ -0,0 +1,227 @@
+package ru.practicum.shareit.booking.occupancy;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Интервалы бронирований одной вещи: декартово дерево по (start, bookingId), в каждом узле
+ * которого хранится максимальный end поддерева. Поиск пересечения и вставка стоят O(log n)
+ * в среднем и остаются корректными, даже если в базе уже лежат пересекающиеся бронирования.
+ * Интервалы полуоткрытые: бронирование, заканчивающееся в момент начала другого, с ним не пересекается.
+ * <p>
+ * Класс не потокобезопасен, доступ к нему синхронизирует {@link ItemOccupancyIndex}.
+ */
+final class IntervalTree {
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void add(long bookingId, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        root = insert(root, new Node(bookingId, start, end, status, ThreadLocalRandom.current().nextInt()));
+        size++;
+    }
+
+    boolean remove(long bookingId, LocalDateTime start) {
+        int before = size;
+        root = delete(root, bookingId, start);
+        return size < before;
+    }
+
+    /**
+     * Удаляет интервалы, закончившиеся не позже cutoff, и возвращает их число.
+     * Поддеревья, в которых всё закончилось, отбрасываются целиком.
+     */
+    int removeEndedBy(LocalDateTime cutoff) {
+        int before = size;
+        root = prune(root, cutoff);
+        return before - size;
+    }
+
+    boolean setStatus(long bookingId, LocalDateTime start, BookingStatus status) {
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(start, bookingId, node);
+            if (cmp == 0) {
+                node.status = status;
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает id любого бронирования, пересекающего [start, end), или null.
+     */
+    Long findOverlap(LocalDateTime start, LocalDateTime end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(end) && node.end.isAfter(start)) {
+                return node.bookingId;
+            }
+            // Если слева есть интервал, заканчивающийся после start, но не пересекающий запрос,
+            // то он начинается не раньше end, а правое поддерево начинается ещё позже.
+            node = node.left != null && node.left.maxEnd.isAfter(start) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Добавляет в result все интервалы, пересекающие [from, to), в порядке начала.
+     * Поддеревья, в которых всё заканчивается не позже from, не обходятся.
+     */
+    void collect(Long itemId, LocalDateTime from, LocalDateTime to, List<BookedInterval> result) {
+        collect(root, itemId, from, to, result);
+    }
+
+    private static void collect(Node node, Long itemId, LocalDateTime from, LocalDateTime to,
+                                List<BookedInterval> result) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            return;
+        }
+        collect(node.left, itemId, from, to, result);
+        if (!node.start.isBefore(to)) {
+            return;
+        }
+        if (node.end.isAfter(from)) {
+            result.add(new BookedInterval(node.bookingId, itemId, node.start, node.end, node.status));
+        }
+        collect(node.right, itemId, from, to, result);
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.bookingId, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node delete(Node node, long bookingId, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, bookingId, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, bookingId, start);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, bookingId, start);
+        } else {
+            size--;
+            node = merge(node.left, node.right);
+        }
+        if (node != null) {
+            node.update();
+        }
+        return node;
+    }
+
+    private Node prune(Node node, LocalDateTime cutoff) {
+        if (node == null) {
+            return null;
+        }
+        if (!node.maxEnd.isAfter(cutoff)) {
+            size -= count(node);
+            return null;
+        }
+        node.left = prune(node.left, cutoff);
+        node.right = prune(node.right, cutoff);
+        if (!node.end.isAfter(cutoff)) {
+            size--;
+            node = merge(node.left, node.right);
+        }
+        if (node != null) {
+            node.update();
+        }
+        return node;
+    }
+
+    private static int count(Node node) {
+        return node == null ? 0 : 1 + count(node.left) + count(node.right);
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        return right;
+    }
+
+    private static int compare(LocalDateTime start, long bookingId, Node node) {
+        int cmp = start.compareTo(node.start);
+        return cmp != 0 ? cmp : Long.compare(bookingId, node.bookingId);
+    }
+
+    private static final class Node {
+        private final long bookingId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int priority;
+        private BookingStatus status;
+        private LocalDateTime maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long bookingId, LocalDateTime start, LocalDateTime end, BookingStatus status, int priority) {
+            this.bookingId = bookingId;
+            this.start = start;
+            this.end = end;
+            this.status = status;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        private void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package ru.practicum.shareit.booking.occupancy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Занятость вещей ожидающими и подтверждёнными бронированиями.
+ * <p>
+ * Для каждой вещи хранится {@link IntervalTree}, поэтому проверка пересечения стоит O(log n).
+ * Деревья защищены полосатыми блокировками по itemId: бронирования одной вещи проверяются
+ * и резервируются строго по очереди, а разные вещи друг друга почти никогда не ждут.
+ * <p>
+ * В индексе лежат только незавершённые бронирования: при старте читаются интервалы с end позже
+ * текущего момента, а раз в prune-interval закончившиеся интервалы удаляются. Поэтому занятость
+ * за прошедшие периоды индекс не показывает, а память зависит от числа будущих бронирований,
+ * а не от всей истории.
+ * <p>
+ * Сам по себе индекс видит только то, что делал этот экземпляр приложения. Перед бронированием
+ * {@code BookingServiceImpl} блокирует строку вещи и приводит её интервалы в окне заявки к базе
+ * ({@link #sync}), поэтому конфликт определяет база. Вне таких окон индекс может отставать
+ * от изменений, сделанных другими экземплярами или в обход сервиса.
+ */
+@Slf4j
+@Component
+public class ItemOccupancyIndex implements SmartInitializingSingleton, DisposableBean {
+    public static final List<BookingStatus> OCCUPYING_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final int STRIPES = 64;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final Duration pruneInterval;
+    private final Lock[] locks = new Lock[STRIPES];
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService pruner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "occupancy-prune");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ItemOccupancyIndex(BookingRepository bookingRepository,
+                              @Value("${shareit.occupancy.prune-interval:1h}") Duration pruneInterval) {
+        this.bookingRepository = bookingRepository;
+        this.pruneInterval = pruneInterval;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+        long interval = pruneInterval.toMillis();
+        pruner.scheduleWithFixedDelay(() -> prune(LocalDateTime.now()), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        pruner.shutdownNow();
+    }
+
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        long lastId = 0;
+        int indexed = 0;
+        List<BookedInterval> batch;
+        do {
+            batch = bookingRepository.findIntervals(OCCUPYING_STATUSES, now, lastId, Limit.of(REBUILD_BATCH_SIZE));
+            batch.forEach(this::add);
+            indexed += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getBookingId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Индекс занятости вещей построен: {} бронирований", indexed);
+    }
+
+    /**
+     * Резервирует интервал уже сохранённого бронирования или бросает {@link ConflictException},
+     * если вещь в это время занята. Резерв виден другим потокам сразу, до коммита,
+     * и снимается, если текущая транзакция откатится.
+     */
+    public void reserve(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        Lock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = trees.computeIfAbsent(itemId, key -> new IntervalTree());
+            Long conflicting = tree.findOverlap(booking.getStart(), booking.getEnd());
+            if (conflicting != null) {
+                throw new ConflictException("Вещь уже забронирована на пересекающийся период");
+            }
+            tree.add(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus());
+        } finally {
+            lock.unlock();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        remove(itemId, booking.getId(), booking.getStart());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Заменяет интервалы вещи, пересекающие [from, to), интервалами из базы за то же окно. Вызывающий держит
+     * блокировку строки вещи, поэтому незакоммиченных бронирований вещи в индексе нет, и всё, чего нет
+     * в stored, отклонено или удалено в обход этого экземпляра.
+     */
+    public void sync(Long itemId, LocalDateTime from, LocalDateTime to, List<BookedInterval> stored) {
+        Lock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = trees.computeIfAbsent(itemId, key -> new IntervalTree());
+            List<BookedInterval> indexed = new ArrayList<>();
+            tree.collect(itemId, from, to, indexed);
+            for (BookedInterval interval : indexed) {
+                tree.remove(interval.getBookingId(), interval.getStart());
+            }
+            for (BookedInterval interval : stored) {
+                tree.add(interval.getBookingId(), interval.getStart(), interval.getEnd(), interval.getStatus());
+            }
+            if (tree.size() == 0) {
+                trees.remove(itemId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Помечает интервал бронирования подтверждённым после успешного коммита текущей транзакции.
+     */
+    public void confirm(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        afterCommit(() -> {
+            Lock lock = lockFor(itemId);
+            lock.lock();
+            try {
+                IntervalTree tree = trees.get(itemId);
+                if (tree != null) {
+                    tree.setStatus(booking.getId(), booking.getStart(), BookingStatus.APPROVED);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Освобождает интервал бронирования после успешного коммита текущей транзакции.
+     */
+    public void release(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        afterCommit(() -> remove(itemId, booking.getId(), booking.getStart()));
+    }
+
+    /**
+     * Вместе с пользователем каскадом удаляются его бронирования и бронирования его вещей,
+     * поэтому их интервалы снимаются после коммита удаления.
+     */
+    public void releaseUser(Long userId) {
+        List<BookedInterval> intervals = bookingRepository.findUserIntervals(userId, OCCUPYING_STATUSES);
+        if (!intervals.isEmpty()) {
+            afterCommit(() -> intervals.forEach(interval ->
+                    remove(interval.getItemId(), interval.getBookingId(), interval.getStart())));
+        }
+    }
+
+    /**
+     * Занятые интервалы вещи, пересекающие [from, to), в порядке начала. Запрос не обращается к базе.
+     */
+    public List<BookedInterval> busy(Long itemId, LocalDateTime from, LocalDateTime to) {
+        List<BookedInterval> result = new ArrayList<>();
+        Lock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = trees.get(itemId);
+            if (tree != null) {
+                tree.collect(itemId, from, to, result);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Удаляет интервалы, закончившиеся не позже cutoff, и деревья, оставшиеся пустыми.
+     */
+    public int prune(LocalDateTime cutoff) {
+        int removed = 0;
+        for (Long itemId : trees.keySet()) {
+            Lock lock = lockFor(itemId);
+            lock.lock();
+            try {
+                IntervalTree tree = trees.get(itemId);
+                if (tree != null) {
+                    removed += tree.removeEndedBy(cutoff);
+                    if (tree.size() == 0) {
+                        trees.remove(itemId);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.debug("Из индекса занятости удалено завершившихся бронирований: {}", removed);
+        return removed;
+    }
+
+    private void add(BookedInterval interval) {
+        Lock lock = lockFor(interval.getItemId());
+        lock.lock();
+        try {
+            trees.computeIfAbsent(interval.getItemId(), key -> new IntervalTree())
+                    .add(interval.getBookingId(), interval.getStart(), interval.getEnd(), interval.getStatus());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Long itemId, Long bookingId, LocalDateTime start) {
+        Lock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            IntervalTree tree = trees.get(itemId);
+            if (tree != null && tree.remove(bookingId, start) && tree.size() == 0) {
+                trees.remove(itemId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Lock lockFor(Long itemId) {
+        return locks[Math.floorMod(Long.hashCode(itemId), STRIPES)];
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+
+/**
+ * Потоковое чтение бронирований в application/x-ndjson. Поток запроса не занят, пока база отвечает,
+ * а следующая строка запрашивается только после записи предыдущей в ответ.
+ */
+@RestController
+@RequestMapping(path = "/reactive/bookings", produces = "application/x-ndjson")
+@RequiredArgsConstructor
+public class ReactiveBookingController {
+    private final ReactiveBookingReader bookingReader;
+
+    @GetMapping
+    public Flux<BookingResponseDto> getAllByBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                   @RequestParam(defaultValue = "ALL") String state) {
+        return bookingReader.findAllByBooker(userId, state);
+    }
+}
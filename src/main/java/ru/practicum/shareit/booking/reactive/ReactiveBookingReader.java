@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неблокирующее чтение бронирований автора через R2DBC: одна выборка с join вещи и автора,
+ * строки отдаются по мере спроса подписчика. Условия состояний совпадают с BookingSpecifications.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveBookingReader {
+    private final DatabaseClient databaseClient;
+
+    public Flux<BookingResponseDto> findAllByBooker(Long bookerId, String state) {
+        BookingState bookingState = BookingState.from(state);
+        DatabaseClient.GenericExecuteSpec query = databaseClient.sql("SELECT b.id, b.start_date, b.end_date, b.status, " +
+                        "i.id AS item_id, i.name AS item_name, i.description, i.is_available, i.request_id, " +
+                        "u.name AS booker_name, u.email " +
+                        "FROM bookings b " +
+                        "JOIN items i ON i.id = b.item_id " +
+                        "JOIN users u ON u.id = b.booker_id " +
+                        "WHERE b.booker_id = :bookerId AND " + condition(bookingState) + " " +
+                        "ORDER BY b.start_date DESC, b.id DESC")
+                .bind("bookerId", bookerId);
+        if (bookingState.dependsOnTime()) {
+            query = query.bind("now", LocalDateTime.now());
+        }
+        return query
+                .map(row -> {
+                    Long requestId = row.get("request_id", Long.class);
+                    return BookingResponseDto.builder()
+                            .id(row.get("id", Long.class))
+                            .start(row.get("start_date", LocalDateTime.class))
+                            .end(row.get("end_date", LocalDateTime.class))
+                            .status(BookingStatus.valueOf(row.get("status", String.class)))
+                            .item(new ItemDto(row.get("item_id", Long.class),
+                                    row.get("item_name", String.class),
+                                    row.get("description", String.class),
+                                    row.get("is_available", Boolean.class),
+                                    null,
+                                    requestId != null ? requestId.intValue() : null))
+                            .booker(new UserDto(bookerId,
+                                    row.get("booker_name", String.class),
+                                    row.get("email", String.class)))
+                            .build();
+                })
+                .all()
+                .switchIfEmpty(databaseClient.sql("SELECT COUNT(*) AS found FROM users WHERE id = :id")
+                        .bind("id", bookerId)
+                        .map(row -> row.get("found", Long.class))
+                        .one()
+                        .flatMapMany(found -> found == 0
+                                ? Flux.error(new NotFoundException("Пользователь не найден"))
+                                : Flux.empty()));
+    }
+
+    private static String condition(BookingState state) {
+        return switch (state) {
+            case ALL -> "TRUE";
+            case CURRENT -> "b.start_date < :now AND b.end_date > :now";
+            case PAST -> "b.end_date < :now";
+            case FUTURE -> "b.start_date > :now";
+            case WAITING -> "b.status = 'WAITING'";
+            case REJECTED -> "b.status = 'REJECTED'";
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.util.List;
+
+public interface BookingBatchRepository {
+    /**
+     * Пакетный вариант {@link BookingRepository#updateStatus}: один JDBC batch из условных UPDATE.
+     * Для каждого id возвращает число изменённых строк, 0 значит, что бронирование уже не в статусе expected.
+     */
+    int[] updateStatuses(List<Long> ids, BookingStatus expected, BookingStatus status);
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+class BookingBatchRepositoryImpl implements BookingBatchRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] updateStatuses(List<Long> ids, BookingStatus expected, BookingStatus status) {
+        if (ids.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(
+                "UPDATE bookings SET status = ?, version = version + 1 WHERE id = ? AND status = ?",
+                ids.stream()
+                        .map(id -> new Object[]{status.name(), id, expected.name()})
+                        .collect(Collectors.toList()));
+    }
+}
@@ -1,61 +1,144 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.occupancy.BookedInterval;
+import ru.practicum.shareit.common.VersionStamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findByBookerId(Long bookerId, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStartBeforeAndEndAfter(
-            Long bookerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndEndBefore(
-            Long bookerId, LocalDateTime end, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStartAfter(
-            Long bookerId, LocalDateTime start, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStatus(
-            Long bookerId, BookingStatus status, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdOrderByStartDesc(Long ownerId, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-            Long ownerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndEndBeforeOrderByStartDesc(
-            Long ownerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartAfterOrderByStartDesc(
-            Long ownerId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStatusOrderByStartDesc(
-            Long ownerId, BookingStatus status, Pageable pageable);
-
-    Booking findFirstByItemIdAndStartBeforeAndStatusOrderByStartDesc(
-            Long itemId, LocalDateTime now, BookingStatus status);
-
-    Booking findFirstByItemIdAndStartAfterAndStatusOrderByStartAsc(
-            Long itemId, LocalDateTime now, BookingStatus status);
+import java.util.Optional;
+
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking>,
+        BookingBatchRepository {
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findById(Long id);
+
+    @Override
+    @EntityGraph(Booking.WITH_ITEM_AND_BOOKER)
+    List<Booking> findAllById(Iterable<Long> ids);
+
+    /**
+     * Переводит бронирование в новый статус, только если оно всё ещё в статусе expected.
+     * Возвращает число изменённых строк: 0 значит, что переход уже выполнил кто-то другой.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.status = :expected")
+    int updateStatus(@Param("id") Long id,
+                     @Param("expected") BookingStatus expected,
+                     @Param("status") BookingStatus status);
+
+    /**
+     * Отпечатки для ETag. В сумму версий входят вещь и автор, потому что они встроены в ответ.
+     */
+    @Query("SELECT new ru.practicum.shareit.common.VersionStamp(" +
+            "count(b), max(b.id), sum(b.version + b.item.version + b.booker.version)) " +
+            "FROM Booking b " +
+            "WHERE b.id = :id AND (b.booker.id = :userId OR b.item.owner.id = :userId)")
+    VersionStamp findVersionStamp(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT new ru.practicum.shareit.common.VersionStamp(" +
+            "count(b), max(b.id), sum(b.version + b.item.version + b.booker.version)) " +
+            "FROM Booking b " +
+            "WHERE b.booker.id = :bookerId")
+    VersionStamp findVersionStampByBooker(@Param("bookerId") Long bookerId);
+
+    @Query("SELECT new ru.practicum.shareit.common.VersionStamp(" +
+            "count(b), max(b.id), sum(b.version + b.item.version + b.booker.version)) " +
+            "FROM Booking b " +
+            "WHERE b.item.owner.id = :ownerId")
+    VersionStamp findVersionStampByOwner(@Param("ownerId") Long ownerId);
 
     boolean existsByBookerIdAndItemIdAndEndBefore(Long bookerId, Long itemId, LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingShortDto(b.id, b.booker.id, b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status = :status " +
+            "AND b.end < :now " +
+            "ORDER BY b.end DESC, b.id DESC")
+    List<BookingShortDto> findLastBookings(@Param("itemId") Long itemId,
+                                           @Param("status") BookingStatus status,
+                                           @Param("now") LocalDateTime now,
+                                           Limit limit);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingShortDto(b.id, b.booker.id, b.start, b.end) " +
+            "FROM Booking b " +
             "WHERE b.item.id = :itemId " +
-            "AND b.status = 'APPROVED' " +
-            "ORDER BY b.start ASC")
-    List<Booking> findApprovedBookingsForItem(@Param("itemId") Long itemId);
-
-    @Query("SELECT b FROM Booking b " +
-            "JOIN FETCH b.booker " +
-            "WHERE b.item.owner.id = :ownerId " +
-            "AND b.status = 'APPROVED'")
-    List<Booking> findAllApprovedBookingsByOwnerId(@Param("ownerId") Long ownerId);
+            "AND b.status = :status " +
+            "AND b.start > :now " +
+            "ORDER BY b.start ASC, b.id ASC")
+    List<BookingShortDto> findNextBookings(@Param("itemId") Long itemId,
+                                           @Param("status") BookingStatus status,
+                                           @Param("now") LocalDateTime now,
+                                           Limit limit);
+
+    @Query(value = "SELECT ranked.item_id AS itemId, ranked.id AS id, ranked.booker_id AS bookerId, " +
+            "ranked.start_date AS startDate, ranked.end_date AS endDate, ranked.is_last AS last " +
+            "FROM (" +
+            "SELECT b.item_id, b.id, b.booker_id, b.start_date, b.end_date, TRUE AS is_last, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.end_date DESC, b.id DESC) AS rn " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status = 'APPROVED' AND b.end_date < :now " +
+            "UNION ALL " +
+            "SELECT b.item_id, b.id, b.booker_id, b.start_date, b.end_date, FALSE AS is_last, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date ASC, b.id ASC) AS rn " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) AND b.status = 'APPROVED' AND b.start_date > :now" +
+            ") ranked " +
+            "WHERE ranked.rn = 1",
+            nativeQuery = true)
+    List<ItemBookingView> findLastAndNextBookings(@Param("itemIds") List<Long> itemIds,
+                                                  @Param("now") LocalDateTime now);
+
+    /**
+     * Интервалы, которые ещё не закончились к моменту now: завершённые бронирования индексу занятости не нужны.
+     */
+    @Query("SELECT new ru.practicum.shareit.booking.occupancy.BookedInterval(b.id, b.item.id, b.start, b.end, b.status) " +
+            "FROM Booking b " +
+            "WHERE b.status IN :statuses " +
+            "AND b.end > :now " +
+            "AND b.id > :afterId " +
+            "ORDER BY b.id")
+    List<BookedInterval> findIntervals(@Param("statuses") Collection<BookingStatus> statuses,
+                                       @Param("now") LocalDateTime now,
+                                       @Param("afterId") Long afterId,
+                                       Limit limit);
+
+    /**
+     * Сохранённые в базе интервалы вещей, пересекающие [from, to). Читаются без flush, чтобы не разбивать
+     * пакетную вставку: ещё не записанные бронирования текущей транзакции уже лежат в индексе занятости.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT new ru.practicum.shareit.booking.occupancy.BookedInterval(b.id, b.item.id, b.start, b.end, b.status) " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status IN :statuses " +
+            "AND b.start < :to " +
+            "AND b.end > :from")
+    List<BookedInterval> findOverlappingIntervals(@Param("itemIds") Collection<Long> itemIds,
+                                                  @Param("statuses") Collection<BookingStatus> statuses,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    @Query("SELECT new ru.practicum.shareit.booking.occupancy.BookedInterval(b.id, b.item.id, b.start, b.end, b.status) " +
+            "FROM Booking b " +
+            "WHERE b.status IN :statuses " +
+            "AND (b.booker.id = :userId OR b.item.owner.id = :userId)")
+    List<BookedInterval> findUserIntervals(@Param("userId") Long userId,
+                                           @Param("statuses") Collection<BookingStatus> statuses);
 }
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.criteria.JoinType;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingSpecifications {
+    /**
+     * Подгружает вещь и автора в том же select, что и страницу бронирований. Владелец и запрос вещи
+     * в ответ попадают только как id, их читает ленивый прокси без отдельного запроса.
+     */
+    public static Specification<Booking> withItemAndBooker() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("item", JoinType.INNER);
+                root.fetch("booker", JoinType.INNER);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Booking> byBooker(Long bookerId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> byItemOwner(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Booking> inState(BookingState state, LocalDateTime now) {
+        return switch (state) {
+            case ALL -> (root, query, cb) -> cb.conjunction();
+            case CURRENT -> (root, query, cb) -> cb.and(
+                    cb.lessThan(root.get("start"), now),
+                    cb.greaterThan(root.get("end"), now));
+            case PAST -> (root, query, cb) -> cb.lessThan(root.get("end"), now);
+            case FUTURE -> (root, query, cb) -> cb.greaterThan(root.get("start"), now);
+            case WAITING -> (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.WAITING);
+            case REJECTED -> (root, query, cb) -> cb.equal(root.get("status"), BookingStatus.REJECTED);
+        };
+    }
+
+    /**
+     * Бронирования строго после курсора в порядке (start DESC, id DESC).
+     */
+    public static Specification<Booking> after(BookingCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("start"), cursor.getStart()),
+                cb.and(cb.equal(root.get("start"), cursor.getStart()),
+                        cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSlice;
+import ru.practicum.shareit.common.VersionStamp;
 import java.util.List;
 
 public interface BookingService {
@@ -9,9 +13,23 @@ public interface BookingService {
 
     BookingResponseDto approve(Long bookingId, Long userId, Boolean approved);
 
+    List<BookingBatchEntryDto> createAll(List<BookingDto> bookingDtos, Long userId);
+
+    List<BookingBatchEntryDto> approveAll(List<Long> bookingIds, Long userId, Boolean approved);
+
     BookingResponseDto getById(Long bookingId, Long userId);
 
     List<BookingResponseDto> getAllByBooker(Long userId, String state, int from, int size);
 
     List<BookingResponseDto> getAllByOwner(Long userId, String state, int from, int size);
+
+    BookingSlice getAllByBooker(Long userId, String state, BookingCursor after, int size);
+
+    BookingSlice getAllByOwner(Long userId, String state, BookingCursor after, int size);
+
+    VersionStamp getVersion(Long bookingId, Long userId);
+
+    VersionStamp getAllVersionByBooker(Long userId);
+
+    VersionStamp getAllVersionByOwner(Long userId);
 }
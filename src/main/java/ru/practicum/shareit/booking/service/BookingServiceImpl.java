@@ -1,35 +1,64 @@
 package ru.practicum.shareit.booking.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSlice;
+import ru.practicum.shareit.booking.occupancy.BookedInterval;
+import ru.practicum.shareit.booking.occupancy.ItemOccupancyIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
+import ru.practicum.shareit.common.VersionStamp;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.cache.ItemChangedEvent;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Direction.DESC, "start", "id");
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final String ALREADY_DECIDED = "Бронирование уже было подтверждено или отклонено";
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ItemOccupancyIndex occupancyIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -40,11 +69,78 @@ public class BookingServiceImpl implements BookingService {
         Item item = itemRepository.findById(bookingDto.getItemId())
                 .orElseThrow(() -> new NotFoundException("Вещь не найдена"));
 
+        lockAndSyncOccupancy(List.of(bookingDto));
+        return BookingMapper.toBookingResponseDto(book(bookingDto, item, booker));
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchEntryDto> createAll(List<BookingDto> bookingDtos, Long userId) {
+        checkBatchSize(bookingDtos);
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+
+        Set<Long> itemIds = bookingDtos.stream()
+                .map(BookingDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        lockAndSyncOccupancy(bookingDtos);
+
+        List<BookingBatchEntryDto> results = new ArrayList<>(bookingDtos.size());
+        for (BookingDto bookingDto : bookingDtos) {
+            try {
+                Item item = items.get(bookingDto.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Вещь не найдена");
+                }
+                results.add(success(BookingMapper.toBookingResponseDto(book(bookingDto, item, booker))));
+            } catch (NotFoundException | ForbiddenException | ValidationException | ConflictException e) {
+                results.add(failure(null, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Блокирует строки вещей из заявок, читает из базы их занятые интервалы в общем окне заявок
+     * и приводит к ним индекс занятости. Индекс сам по себе знает только то, что видел этот экземпляр
+     * приложения: бронирование, отклонённое или созданное на другом экземпляре, в нём устарело.
+     * Пока строка вещи заблокирована, ни у кого нет её незакоммиченных бронирований, поэтому в этом окне
+     * правду говорит база, а индекс после синхронизации проверяет пересечения внутри текущего пакета.
+     */
+    private void lockAndSyncOccupancy(List<BookingDto> bookingDtos) {
+        Set<Long> itemIds = new TreeSet<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (BookingDto bookingDto : bookingDtos) {
+            if (bookingDto.getItemId() == null || bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+                continue;
+            }
+            itemIds.add(bookingDto.getItemId());
+            from = from == null || bookingDto.getStart().isBefore(from) ? bookingDto.getStart() : from;
+            to = to == null || bookingDto.getEnd().isAfter(to) ? bookingDto.getEnd() : to;
+        }
+        if (itemIds.isEmpty() || !from.isBefore(to)) {
+            return;
+        }
+        itemRepository.lockByIdIn(itemIds);
+        LocalDateTime windowStart = from.truncatedTo(ChronoUnit.MICROS);
+        Map<Long, List<BookedInterval>> stored = bookingRepository.findOverlappingIntervals(itemIds,
+                        ItemOccupancyIndex.OCCUPYING_STATUSES, windowStart, to).stream()
+                .collect(Collectors.groupingBy(BookedInterval::getItemId));
+        for (Long itemId : itemIds) {
+            occupancyIndex.sync(itemId, windowStart, to, stored.getOrDefault(itemId, List.of()));
+        }
+    }
+
+    private Booking book(BookingDto bookingDto, Item item, User booker) {
         if (!item.getAvailable()) {
             throw new ValidationException("Вещь недоступна для бронирования");
         }
 
-        if (item.getOwner().getId().equals(userId)) {
+        if (item.getOwner().getId().equals(booker.getId())) {
             throw new ForbiddenException("Владелец не может бронировать свою вещь");
         }
 
@@ -52,9 +148,21 @@ public class BookingServiceImpl implements BookingService {
         booking.setStatus(BookingStatus.WAITING);
 
         validateBookingTime(booking);
+        // База хранит время с точностью до микросекунд. Индекс занятости ищет бронирование по start,
+        // поэтому в нём должно лежать то же значение, что потом прочитается из базы.
+        booking.setStart(booking.getStart().truncatedTo(ChronoUnit.MICROS));
+        booking.setEnd(booking.getEnd().truncatedTo(ChronoUnit.MICROS));
 
+        // save выдаёт id из пула последовательности, а INSERT откладывается до flush. При конфликте
+        // бронирование удаляется ещё до вставки, и пакетное создание продолжает остальные записи.
         Booking savedBooking = bookingRepository.save(booking);
-        return BookingMapper.toBookingResponseDto(savedBooking);
+        try {
+            occupancyIndex.reserve(savedBooking);
+        } catch (ConflictException e) {
+            bookingRepository.delete(savedBooking);
+            throw e;
+        }
+        return savedBooking;
     }
 
     @Override
@@ -62,18 +170,106 @@ public class BookingServiceImpl implements BookingService {
     public BookingResponseDto approve(Long bookingId, Long userId, Boolean approved) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование не найдено"));
+        checkDecidable(booking, userId);
+
+        // Проверка статуса и переход выполняются одним UPDATE ... WHERE status = 'WAITING',
+        // поэтому из одновременных подтверждения и отклонения выигрывает ровно одно.
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (bookingRepository.updateStatus(bookingId, BookingStatus.WAITING, status) == 0) {
+            throw new ConflictException(ALREADY_DECIDED);
+        }
+        booking.setStatus(status);
+        updateOccupancy(booking, approved);
+        return BookingMapper.toBookingResponseDto(booking);
+    }
+
+    /**
+     * Бронирования читаются одним запросом, а переходы статуса уходят одним JDBC batch
+     * с тем же условием status = 'WAITING', что и у одиночного подтверждения.
+     */
+    @Override
+    @Transactional
+    public List<BookingBatchEntryDto> approveAll(List<Long> bookingIds, Long userId, Boolean approved) {
+        checkBatchSize(bookingIds);
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        Map<Long, Booking> bookings = bookingRepository.findAllById(new HashSet<>(bookingIds)).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        BookingBatchEntryDto[] results = new BookingBatchEntryDto[bookingIds.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Long> decidable = new ArrayList<>();
+        for (int i = 0; i < bookingIds.size(); i++) {
+            Long bookingId = bookingIds.get(i);
+            try {
+                Booking booking = bookings.get(bookingId);
+                if (booking == null) {
+                    throw new NotFoundException("Бронирование не найдено");
+                }
+                checkDecidable(booking, userId);
+                positions.add(i);
+                decidable.add(bookingId);
+            } catch (NotFoundException | ForbiddenException | ValidationException e) {
+                results[i] = failure(bookingId, e);
+            }
+        }
 
+        int[] updated = bookingRepository.updateStatuses(decidable, BookingStatus.WAITING, status);
+        for (int j = 0; j < decidable.size(); j++) {
+            Long bookingId = decidable.get(j);
+            if (updated[j] == 0) {
+                results[positions.get(j)] = failure(bookingId, new ConflictException(ALREADY_DECIDED));
+                continue;
+            }
+            // Сущность не меняется, иначе грязная проверка повторит UPDATE при коммите.
+            Booking booking = bookings.get(bookingId);
+            BookingResponseDto response = BookingMapper.toBookingResponseDto(booking);
+            response.setStatus(status);
+            results[positions.get(j)] = success(response);
+            updateOccupancy(booking, approved);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void checkDecidable(Booking booking, Long userId) {
         if (!booking.getItem().getOwner().getId().equals(userId)) {
             throw new ForbiddenException("Подтверждать бронирование может только владелец");
         }
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            throw new ValidationException(ALREADY_DECIDED);
+        }
+    }
 
-        if (!booking.getStatus().equals(BookingStatus.WAITING)) {
-            throw new ValidationException("Бронирование уже было подтверждено или отклонено");
+    private void updateOccupancy(Booking booking, boolean approved) {
+        if (approved) {
+            occupancyIndex.confirm(booking);
+        } else {
+            occupancyIndex.release(booking);
         }
+        eventPublisher.publishEvent(new ItemChangedEvent(booking.getItem().getId()));
+    }
+
+    private static void checkBatchSize(List<?> entries) {
+        if (entries == null || entries.isEmpty() || entries.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Пакет должен содержать от 1 до " + MAX_BATCH_SIZE + " записей");
+        }
+    }
+
+    private static BookingBatchEntryDto success(BookingResponseDto booking) {
+        return new BookingBatchEntryDto(booking.getId(), HttpStatus.OK.value(), booking, null);
+    }
 
-        booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        Booking updatedBooking = bookingRepository.save(booking);
-        return BookingMapper.toBookingResponseDto(updatedBooking);
+    private static BookingBatchEntryDto failure(Long bookingId, RuntimeException e) {
+        HttpStatus status;
+        if (e instanceof NotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof ForbiddenException) {
+            status = HttpStatus.FORBIDDEN;
+        } else if (e instanceof ConflictException) {
+            status = HttpStatus.CONFLICT;
+        } else {
+            status = HttpStatus.BAD_REQUEST;
+        }
+        return new BookingBatchEntryDto(bookingId, status.value(), null, e.getMessage());
     }
 
     @Override
@@ -93,110 +289,126 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional(readOnly = true)
     public List<BookingResponseDto> getAllByBooker(Long userId, String state, int from, int size) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        List<BookingResponseDto> bookings = findPage(BookingSpecifications.byBooker(userId), state, from, size);
+        if (bookings.isEmpty()) {
+            checkBookerExists(userId);
+        }
+        return bookings;
+    }
 
-        if (from < 0 || size <= 0) {
-            throw new ValidationException("Некорректные параметры пагинации");
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDto> getAllByOwner(Long userId, String state, int from, int size) {
+        List<BookingResponseDto> bookings = findPage(BookingSpecifications.byItemOwner(userId), state, from, size);
+        if (bookings.isEmpty()) {
+            checkOwnerHasItems(userId);
         }
+        return bookings;
+    }
 
-        Pageable page = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "start"));
-        LocalDateTime now = LocalDateTime.now();
-
-        switch (state.toUpperCase()) {
-            case "ALL":
-                return bookingRepository.findByBookerId(userId, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "CURRENT":
-                return bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(
-                                userId, now, now, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "PAST":
-                return bookingRepository.findByBookerIdAndEndBefore(
-                                userId, now, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "FUTURE":
-                return bookingRepository.findByBookerIdAndStartAfter(
-                                userId, now, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "WAITING":
-                return bookingRepository.findByBookerIdAndStatus(
-                                userId, BookingStatus.WAITING, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "REJECTED":
-                return bookingRepository.findByBookerIdAndStatus(
-                                userId, BookingStatus.REJECTED, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            default:
-                throw new ValidationException("Unknown state: " + state);
+    @Override
+    @Transactional(readOnly = true)
+    public BookingSlice getAllByBooker(Long userId, String state, BookingCursor after, int size) {
+        BookingSlice slice = findSlice(BookingSpecifications.byBooker(userId), state, after, size);
+        if (slice.getContent().isEmpty()) {
+            checkBookerExists(userId);
         }
+        return slice;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookingResponseDto> getAllByOwner(Long userId, String state, int from, int size) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    public BookingSlice getAllByOwner(Long userId, String state, BookingCursor after, int size) {
+        BookingSlice slice = findSlice(BookingSpecifications.byItemOwner(userId), state, after, size);
+        if (slice.getContent().isEmpty()) {
+            checkOwnerHasItems(userId);
+        }
+        return slice;
+    }
 
-        if (itemRepository.findByOwnerId(userId).isEmpty()) {
-            throw new NotFoundException("У пользователя нет вещей для бронирования");
+    @Override
+    public VersionStamp getVersion(Long bookingId, Long userId) {
+        return bookingRepository.findVersionStamp(bookingId, userId);
+    }
+
+    @Override
+    public VersionStamp getAllVersionByBooker(Long userId) {
+        return bookingRepository.findVersionStampByBooker(userId);
+    }
+
+    @Override
+    public VersionStamp getAllVersionByOwner(Long userId) {
+        return bookingRepository.findVersionStampByOwner(userId);
+    }
+
+    private List<BookingResponseDto> findPage(Specification<Booking> scope, String state, int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
         }
 
-        PageRequest page = PageRequest.of(from / size, size);
-        LocalDateTime now = LocalDateTime.now();
-
-        switch (state) {
-            case "ALL":
-                return bookingRepository.findByItemOwnerIdOrderByStartDesc(userId, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "CURRENT":
-                return bookingRepository.findByItemOwnerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-                                userId, now, now, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "PAST":
-                return bookingRepository.findByItemOwnerIdAndEndBeforeOrderByStartDesc(userId, now, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "FUTURE":
-                return bookingRepository.findByItemOwnerIdAndStartAfterOrderByStartDesc(userId, now, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "WAITING":
-                return bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(
-                                userId, BookingStatus.WAITING, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            case "REJECTED":
-                return bookingRepository.findByItemOwnerIdAndStatusOrderByStartDesc(
-                                userId, BookingStatus.REJECTED, page)
-                        .stream()
-                        .map(BookingMapper::toBookingResponseDto)
-                        .collect(Collectors.toList());
-            default:
-                throw new ValidationException("Unknown state: " + state);
+        Specification<Booking> spec = scope
+                .and(BookingSpecifications.inState(BookingState.from(state), LocalDateTime.now()))
+                .and(BookingSpecifications.withItemAndBooker());
+        long offset = (long) (from / size) * size;
+
+        return bookingRepository.findBy(spec, query -> query
+                        .sortBy(KEYSET_SORT)
+                        .limit(size)
+                        .scroll(offset == 0 ? ScrollPosition.offset() : ScrollPosition.offset(offset - 1)))
+                .stream()
+                .map(BookingMapper::toBookingResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    private BookingSlice findSlice(Specification<Booking> scope, String state, BookingCursor after, int size) {
+        if (size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
+
+        Specification<Booking> spec = scope
+                .and(BookingSpecifications.inState(BookingState.from(state), LocalDateTime.now()))
+                .and(BookingSpecifications.withItemAndBooker());
+        if (after != null) {
+            spec = spec.and(BookingSpecifications.after(after));
+        }
+
+        List<BookingResponseDto> bookings = bookingRepository.findBy(spec, query -> query
+                        .sortBy(KEYSET_SORT)
+                        .limit(size + 1)
+                        .all())
+                .stream()
+                .map(BookingMapper::toBookingResponseDto)
+                .collect(Collectors.toList());
+
+        if (bookings.size() <= size) {
+            return new BookingSlice(bookings, null);
+        }
+        List<BookingResponseDto> content = bookings.subList(0, size);
+        return new BookingSlice(content, BookingCursor.of(content.get(size - 1)));
+    }
+
+    /**
+     * Проверки существования выполняются только для пустого результата: непустая страница
+     * уже доказывает, что пользователь (и его вещи) существуют.
+     */
+    private void checkBookerExists(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+
+    private void checkOwnerHasItems(Long userId) {
+        checkBookerExists(userId);
+        if (!itemRepository.existsByOwnerId(userId)) {
+            throw new NotFoundException("У пользователя нет вещей для бронирования");
         }
     }
 
     private void validateBookingTime(Booking booking) {
+        if (booking.getStart() == null || booking.getEnd() == null) {
+            throw new ValidationException("Даты начала и окончания бронирования обязательны");
+        }
+
         if (booking.getStart().isAfter(booking.getEnd())) {
             throw new ValidationException("Дата начала бронирования должна быть раньше даты окончания");
         }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.common;
+
+import java.util.StringJoiner;
+
+/**
+ * Сильные ETag из идентификаторов и версий, без сериализации тела ответа.
+ */
+public final class ETags {
+    private ETags() {
+    }
+
+    public static String of(Object... parts) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Object part : parts) {
+            etag.add(String.valueOf(part));
+        }
+        return etag.toString();
+    }
+}
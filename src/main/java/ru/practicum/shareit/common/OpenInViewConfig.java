@@ -0,0 +1,34 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view для всех запросов, кроме потоковых ответов.
+ * <p>
+ * Асинхронный ответ держит EntityManager open-in-view до своего завершения: подписка /requests/stream
+ * занимает соединение из пула на всё время подписки, а выгрузка /items/search/stream копит в одном
+ * контексте персистентности все прочитанные батчи. Поэтому интерцептор регистрируется здесь вместо
+ * автоконфигурации Spring Boot (она отступает, увидев этот бин) с исключением для потоков. Профиль virtual,
+ * где open-in-view выключен, не затрагивается.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.open-in-view", havingValue = "true", matchIfMissing = true)
+public class OpenInViewConfig implements WebMvcConfigurer {
+    private static final String[] STREAMING_PATHS = {"/requests/stream", "/items/search/stream"};
+
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(STREAMING_PATHS);
+    }
+}
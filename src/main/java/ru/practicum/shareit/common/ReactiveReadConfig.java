@@ -0,0 +1,44 @@
+package ru.practicum.shareit.common;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Неблокирующий доступ к той же базе для потоковых GET-запросов.
+ * <p>
+ * Пул R2DBC не публикуется как бин ConnectionFactory: при его наличии Spring Boot не создаёт
+ * DataSource, а на нём работают JPA, Flyway и все изменения. Пул закрывается вместе с контекстом.
+ */
+@Configuration
+public class ReactiveReadConfig implements DisposableBean {
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${shareit.r2dbc.url}") String url,
+                                                 @Value("${shareit.r2dbc.username}") String username,
+                                                 @Value("${shareit.r2dbc.password}") String password,
+                                                 @Value("${shareit.r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(poolSize)
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Отпечаток набора строк: количество, максимальный id и сумма версий. Id выдаются
+ * последовательностью и не переиспользуются, а версии только растут, поэтому любая вставка
+ * меняет max(id) или количество, удаление — количество, а изменение — сумму версий.
+ * Считается одним агрегирующим запросом, без чтения самих строк.
+ */
+@Getter
+@AllArgsConstructor
+public class VersionStamp {
+    private final Long count;
+    private final Long maxId;
+    private final Long versionSum;
+
+    public boolean isEmpty() {
+        return count == null || count == 0;
+    }
+
+    public String toEtag(String scope) {
+        return ETags.of(scope, count, maxId, versionSum);
+    }
+}
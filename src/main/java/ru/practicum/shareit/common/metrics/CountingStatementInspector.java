@@ -0,0 +1,14 @@
+package ru.practicum.shareit.common.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает каждый SQL, который Hibernate готовит к выполнению. Текст запроса не меняется.
+ */
+class CountingStatementInspector implements StatementInspector {
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statementPrepared(sql);
+        return sql;
+    }
+}
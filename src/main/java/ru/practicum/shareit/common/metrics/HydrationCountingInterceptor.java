@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Считает сущности, которые Hibernate собирает из строк результата или из кэша второго уровня.
+ * Проекции в интерфейсы и DTO сущностями не являются и сюда не попадают.
+ */
+class HydrationCountingInterceptor implements Interceptor {
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCounter.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Сколько SQL-запросов может выполнить один вызов эндпоинта, независимо от размера ответа.
+ * Проверяется {@link QueryGuardFilter}, если он включён (профили dev и тесты).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.common.metrics;
+
+public class QueryBudgetExceededException extends IllegalStateException {
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
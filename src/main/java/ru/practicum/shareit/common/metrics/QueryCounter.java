@@ -0,0 +1,63 @@
+package ru.practicum.shareit.common.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Счётчики SQL-запросов и загруженных сущностей текущего потока.
+ * <p>
+ * Значения только растут; кто хочет узнать стоимость участка кода, запоминает {@link #snapshot()}
+ * до него и вычитает после. Поэтому вложенные замеры (запрос и вызовы репозиториев внутри него)
+ * не мешают друг другу, а сбрасывать счётчики не нужно. Обычные поля без синхронизации:
+ * каждый экземпляр принадлежит одному потоку.
+ * <p>
+ * Тексты запросов сохраняются, только пока поток их записывает ({@link QueryGuardFilter}).
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<QueryCounter> CURRENT = ThreadLocal.withInitial(QueryCounter::new);
+
+    private long statements;
+    private long entities;
+    private List<String> recorded;
+
+    private QueryCounter() {
+    }
+
+    public static Snapshot snapshot() {
+        QueryCounter counter = CURRENT.get();
+        return new Snapshot(counter.statements, counter.entities);
+    }
+
+    static void startRecording() {
+        CURRENT.get().recorded = new ArrayList<>();
+    }
+
+    static List<String> stopRecording() {
+        QueryCounter counter = CURRENT.get();
+        List<String> recorded = counter.recorded;
+        counter.recorded = null;
+        return recorded != null ? recorded : List.of();
+    }
+
+    static void statementPrepared(String sql) {
+        QueryCounter counter = CURRENT.get();
+        counter.statements++;
+        if (counter.recorded != null) {
+            counter.recorded.add(sql);
+        }
+    }
+
+    static void entityLoaded() {
+        CURRENT.get().entities++;
+    }
+
+    public record Snapshot(long statements, long entities) {
+        /**
+         * Сколько запросов выполнено и сущностей загружено в этом потоке с момента снимка.
+         */
+        public Snapshot elapsed() {
+            Snapshot now = QueryCounter.snapshot();
+            return new Snapshot(now.statements - statements, now.entities - entities);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.common.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Записывает все SQL одного HTTP-запроса и проверяет их после ответа: не превышен ли {@link QueryBudget}
+ * эндпоинта и не повторяется ли один и тот же запрос с разными параметрами (признак N+1).
+ * <p>
+ * Запросы сравниваются по форме: пробелы схлопываются, списки параметров IN (?, ?, ?) сводятся к одному,
+ * так что батчи разного размера считаются одним запросом. Нарушения пишутся в лог, а в тестах
+ * выбрасываются как {@link QueryBudgetExceededException}, и MockMvc-тест, который их вызвал, падает.
+ * Асинхронные ответы не проверяются: их запросы выполняются на других потоках.
+ */
+@Slf4j
+class QueryGuardFilter extends OncePerRequestFilter {
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int SHAPE_LENGTH = 200;
+
+    private final int repeatThreshold;
+    private final boolean failOnViolation;
+
+    QueryGuardFilter(int repeatThreshold, boolean failOnViolation) {
+        this.repeatThreshold = repeatThreshold;
+        this.failOnViolation = failOnViolation;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        List<String> statements;
+        QueryCounter.startRecording();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            statements = QueryCounter.stopRecording();
+        }
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        List<String> violations = check(request, statements);
+        if (violations.isEmpty()) {
+            return;
+        }
+        String message = request.getMethod() + " " + request.getRequestURI() + ": " + String.join("; ", violations);
+        if (failOnViolation) {
+            throw new QueryBudgetExceededException(message);
+        }
+        log.warn("Query guard: {}", message);
+    }
+
+    private List<String> check(HttpServletRequest request, List<String> statements) {
+        List<String> violations = new ArrayList<>();
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            QueryBudget budget = handler.getMethodAnnotation(QueryBudget.class);
+            if (budget != null && statements.size() > budget.value()) {
+                violations.add(statements.size() + " statements, budget is " + budget.value());
+            }
+        }
+        Map<String, Integer> shapes = new LinkedHashMap<>();
+        for (String sql : statements) {
+            shapes.merge(shape(sql), 1, Integer::sum);
+        }
+        shapes.forEach((shape, count) -> {
+            if (count >= repeatThreshold) {
+                violations.add("repeated " + count + " times: " + shape);
+            }
+        });
+        return violations;
+    }
+
+    static String shape(String sql) {
+        String shape = PARAMETER_LIST.matcher(WHITESPACE.matcher(sql.trim()).replaceAll(" ")).replaceAll("?");
+        return shape.length() > SHAPE_LENGTH ? shape.substring(0, SHAPE_LENGTH) + "..." : shape;
+    }
+}
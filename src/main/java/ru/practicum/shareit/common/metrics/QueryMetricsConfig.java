@@ -0,0 +1,68 @@
+package ru.practicum.shareit.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Подсчёт SQL и загруженных сущностей: в Hibernate, на каждом вызове репозитория и на каждом HTTP-запросе.
+ * Таймеры сервисов (@Timed) и пула соединений Spring Boot регистрирует сам, здесь только то, чего в нём нет.
+ * Проверка бюджетов запросов включается свойством shareit.query-guard.enabled (профиль dev и тесты).
+ */
+@Configuration
+public class QueryMetricsConfig implements WebMvcConfigurer {
+    private final MeterRegistry registry;
+
+    public QueryMetricsConfig(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new CountingStatementInspector());
+            properties.put(AvailableSettings.INTERCEPTOR, new HydrationCountingInterceptor());
+        };
+    }
+
+    /**
+     * Статический, чтобы постпроцессор создавался раньше остальных бинов и не тянул за собой конфигурацию.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryStatementsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, information) -> proxy.addAdvice(new RepositoryStatementsInterceptor(
+                                    registry.getObject(), information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.query-guard.enabled", havingValue = "true")
+    public OncePerRequestFilter queryGuardFilter(
+            @Value("${shareit.query-guard.repeat-threshold:3}") int repeatThreshold,
+            @Value("${shareit.query-guard.fail-on-violation:false}") boolean failOnViolation) {
+        return new QueryGuardFilter(repeatThreshold, failOnViolation);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry interceptors) {
+        interceptors.addInterceptor(new RequestQueryMetricsInterceptor(registry));
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Записывает, сколько SQL выполнил каждый вызов метода репозитория. Длительность тех же вызовов
+ * Spring Boot пишет сам в spring.data.repository.invocations с такими же тегами.
+ */
+class RepositoryStatementsInterceptor implements MethodInterceptor {
+    static final String METRIC = "shareit.repository.statements";
+
+    private final MeterRegistry registry;
+    private final String repository;
+    private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    RepositoryStatementsInterceptor(MeterRegistry registry, Class<?> repositoryInterface) {
+        this.registry = registry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        QueryCounter.Snapshot before = QueryCounter.snapshot();
+        try {
+            return invocation.proceed();
+        } finally {
+            summaries.computeIfAbsent(invocation.getMethod(), this::summary)
+                    .record(before.elapsed().statements());
+        }
+    }
+
+    private DistributionSummary summary(Method method) {
+        return DistributionSummary.builder(METRIC)
+                .description("SQL-запросы за один вызов метода репозитория")
+                .tag("repository", repository)
+                .tag("method", method.getName())
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сколько SQL выполнено и сущностей загружено за один HTTP-запрос, с тегами метода и шаблона URI,
+ * как у http.server.requests. Счётчики потоковые, поэтому асинхронные запросы (реактивные
+ * эндпоинты) не учитываются: их работа идёт на других потоках и мимо Hibernate.
+ */
+class RequestQueryMetricsInterceptor implements AsyncHandlerInterceptor {
+    static final String STATEMENTS = "shareit.http.statements";
+    static final String ENTITIES = "shareit.http.entities";
+
+    private static final String SNAPSHOT = RequestQueryMetricsInterceptor.class.getName() + ".snapshot";
+
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    RequestQueryMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            request.setAttribute(SNAPSHOT, QueryCounter.snapshot());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        request.removeAttribute(SNAPSHOT);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(SNAPSHOT) instanceof QueryCounter.Snapshot before)) {
+            return;
+        }
+        QueryCounter.Snapshot elapsed = before.elapsed();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        summary(STATEMENTS, request.getMethod(), uri).record(elapsed.statements());
+        summary(ENTITIES, request.getMethod(), uri).record(elapsed.entities());
+    }
+
+    private DistributionSummary summary(String name, String method, String uri) {
+        return summaries.computeIfAbsent(name + ' ' + method + ' ' + uri, key -> DistributionSummary.builder(name)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry));
+    }
+}
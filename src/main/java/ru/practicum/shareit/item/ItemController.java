@@ -1,25 +1,40 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.metrics.QueryBudget;
+import ru.practicum.shareit.item.cache.ItemView;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemUpdateDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @RestController
 @RequestMapping("/items")
 public class ItemController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ObjectMapper objectMapper) {
         this.itemService = itemService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -43,28 +58,65 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ItemWithBookingsDto getById(
+    @QueryBudget(4)
+    public ResponseEntity<ItemWithBookingsDto> getById(
+            @PathVariable Long itemId,
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            WebRequest request) {
+        ItemView view = itemService.getItemView(itemId, userId);
+        if (request.checkNotModified(view.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(view.getEtag())
+                .body(view.getItem());
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(
             @PathVariable Long itemId,
-            @RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemService.getItemWithBookings(itemId, userId);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
     }
 
     @GetMapping
+    @QueryBudget(3)
     public List<ItemWithBookingsDto> getAllByOwner(
-            @RequestHeader("X-Sharer-User-Id") Long ownerId) {
-        return itemService.getAllItemsByOwner(ownerId);
+            @RequestHeader("X-Sharer-User-Id") Long ownerId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "10") int size) {
+        return itemService.getAllItemsByOwner(ownerId, from, size);
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestParam String text) {
+    @QueryBudget(1)
+    public List<ItemDto> search(@RequestParam String text,
+                                @RequestParam(defaultValue = "0") int from,
+                                @RequestParam(defaultValue = "10") int size) {
         if (text == null || text.isBlank()) {
             return List.of();
         }
-        return itemService.search(text).stream()
+        return itemService.search(text, from, size).stream()
                 .map(ItemMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    @GetMapping("/search/stream")
+    public ResponseEntity<StreamingResponseBody> searchStream(@RequestParam String text) {
+        StreamingResponseBody body = out -> {
+            try (Stream<ItemDto> items = itemService.streamSearch(text)) {
+                for (ItemDto item : (Iterable<ItemDto>) items::iterator) {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@PathVariable Long itemId,
                                  @RequestBody CommentDto commentDto,
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Что-то из показываемого на карточке вещи изменилось: сама вещь, её бронирования или отзывы.
+ * itemId == null означает, что устарели карточки всех вещей (например, сменилось имя автора отзывов).
+ */
+@Getter
+@AllArgsConstructor
+public class ItemChangedEvent {
+    private final Long itemId;
+
+    public static ItemChangedEvent allItems() {
+        return new ItemChangedEvent(null);
+    }
+}
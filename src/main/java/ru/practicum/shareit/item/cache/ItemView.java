@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Карточка вещи вместе с её ETag. ETag - первые 128 бит SHA-256 от всех полей DTO, без сериализации тела,
+ * и одинаков на всех экземплярах приложения. Поля кодируются с длиной, поэтому разные карточки
+ * не склеиваются в одну строку. DTO разделяется между запросами и не должен изменяться.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemView {
+    private static final int ETAG_BYTES = 16;
+
+    private final ItemWithBookingsDto item;
+    private final String etag;
+
+    public static ItemView of(ItemWithBookingsDto item, boolean owner) {
+        return new ItemView(item, "\"" + item.getId() + (owner ? "-o-" : "-") + digest(item) + "\"");
+    }
+
+    static String digest(ItemWithBookingsDto item) {
+        StringBuilder fields = new StringBuilder();
+        append(fields, item.getId(), item.getName(), item.getDescription(), item.getAvailable());
+        append(fields, item.getLastBooking());
+        append(fields, item.getNextBooking());
+        if (item.getComments() != null) {
+            append(fields, item.getComments().size());
+            for (CommentDto comment : item.getComments()) {
+                append(fields, comment.getId(), comment.getText(), comment.getAuthorName(), comment.getCreated());
+            }
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(fields.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(Arrays.copyOf(hash, ETAG_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private static void append(StringBuilder fields, BookingShortDto booking) {
+        if (booking == null) {
+            append(fields, (Object) null);
+        } else {
+            append(fields, booking.getId(), booking.getBookerId(), booking.getStart(), booking.getEnd());
+        }
+    }
+
+    private static void append(StringBuilder fields, Object... values) {
+        for (Object value : values) {
+            if (value == null) {
+                fields.append("-1:");
+            } else {
+                String text = value.toString();
+                fields.append(text.length()).append(':').append(text);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.occupancy.BookedInterval;
+import ru.practicum.shareit.booking.occupancy.ItemOccupancyIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш карточек GET /items/{itemId} по паре (вещь, смотрит ли владелец).
+ * <p>
+ * Записи сбрасываются после коммита транзакций, публикующих {@link ItemChangedEvent}.
+ * Карточка, посчитанная одновременно с такой транзакцией, в кэш не попадает: перед записью
+ * проверяется, что с начала расчёта не было ни одной инвалидации. Карточка владельца, кроме того,
+ * живёт только до ближайшего начала или окончания подтверждённого бронирования, когда меняются
+ * lastBooking и nextBooking; моменты берутся из {@link ItemOccupancyIndex} без запросов к базе.
+ * Время жизни записей отсчитывается по бину {@link Ticker}, если он объявлен, иначе по системным часам.
+ */
+@Component
+public class ItemViewCache {
+    static final Duration TTL = Duration.ofMinutes(5);
+    private static final int MAX_SIZE = 20_000;
+
+    private final ItemOccupancyIndex occupancyIndex;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Cache<Long, Entry> cache;
+
+    public ItemViewCache(ItemOccupancyIndex occupancyIndex, MeterRegistry meterRegistry,
+                         ObjectProvider<Ticker> ticker) {
+        this.occupancyIndex = occupancyIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .ticker(ticker.getIfAvailable(Ticker::systemTicker))
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "itemViews");
+    }
+
+    public ItemView get(Long itemId, boolean owner, Supplier<ItemView> loader) {
+        long key = key(itemId, owner);
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.view;
+        }
+        long seen = invalidations.get();
+        LocalDateTime now = LocalDateTime.now();
+        ItemView view = loader.get();
+        Duration ttl = owner ? untilBookingsChange(itemId, now) : TTL;
+        if (invalidations.get() == seen && !ttl.isNegative() && !ttl.isZero()) {
+            cache.put(key, new Entry(view, ttl.toNanos()));
+        }
+        return view;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidations.incrementAndGet();
+        if (event.getItemId() == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key(event.getItemId(), true));
+            cache.invalidate(key(event.getItemId(), false));
+        }
+    }
+
+    private Duration untilBookingsChange(Long itemId, LocalDateTime now) {
+        LocalDateTime horizon = now.plus(TTL);
+        LocalDateTime change = horizon;
+        for (BookedInterval interval : occupancyIndex.busy(itemId, now, horizon)) {
+            if (interval.getStatus() != BookingStatus.APPROVED) {
+                continue;
+            }
+            LocalDateTime boundary = interval.getStart().isAfter(now) ? interval.getStart() : interval.getEnd();
+            if (boundary.isBefore(change)) {
+                change = boundary;
+            }
+        }
+        return Duration.between(now, change);
+    }
+
+    private static long key(Long itemId, boolean owner) {
+        return itemId << 1 | (owner ? 1 : 0);
+    }
+
+    private static final class Entry {
+        private final ItemView view;
+        private final long ttlNanos;
+
+        private Entry(ItemView view, long ttlNanos) {
+            this.view = view;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+
+    private static final class EntryExpiry implements Expiry<Long, Entry> {
+        @Override
+        public long expireAfterCreate(Long key, Entry entry, long currentTime) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Entry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
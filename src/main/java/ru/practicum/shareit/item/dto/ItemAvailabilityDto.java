@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Календарь вещи на окне [from, to). Свободные интервалы лежат внутри окна,
+ * занятые отдаются с настоящими границами бронирований и статусом WAITING или APPROVED.
+ * Прошедшая часть окна тоже учитывается: завершившиеся бронирования в свободные интервалы не попадают.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeSlotDto> free;
+    private List<TimeSlotDto> busy;
+}
@@ -27,4 +27,8 @@ public class ItemDto {
 
     private ItemRequestDto request;
     private Integer requestId;
+
+    public ItemDto(Long id, String name, String description, Boolean available, Integer requestId) {
+        this(id, name, description, available, null, requestId);
+    }
 }
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+
+/**
+ * Потоковое чтение вещей в application/x-ndjson поверх {@link ReactiveItemReader}.
+ */
+@RestController
+@RequestMapping(path = "/reactive/items", produces = "application/x-ndjson")
+@RequiredArgsConstructor
+public class ReactiveItemController {
+    private final ReactiveItemReader itemReader;
+
+    @GetMapping
+    public Flux<ItemWithBookingsDto> getAllByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        return itemReader.findAllByOwner(ownerId);
+    }
+
+    @GetMapping("/search")
+    public Flux<ItemDto> search(@RequestParam String text) {
+        return itemReader.search(text);
+    }
+}
@@ -0,0 +1,146 @@
+package ru.practicum.shareit.item.reactive;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Неблокирующее чтение вещей через R2DBC. Строки читаются по мере спроса подписчика,
+ * а бронирования и отзывы догружаются пачками по BATCH_SIZE вещей, как в ItemServiceImpl.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveItemReader {
+    private static final int BATCH_SIZE = 100;
+    // Тот же порядок, что в BookingRepository.findLastAndNextBookings: при равных датах решает id.
+    private static final Comparator<BookingShortDto> LAST_FIRST = Comparator.comparing(BookingShortDto::getEnd)
+            .thenComparing(BookingShortDto::getId).reversed();
+    private static final Comparator<BookingShortDto> NEXT_FIRST = Comparator.comparing(BookingShortDto::getStart)
+            .thenComparing(BookingShortDto::getId);
+
+    private final DatabaseClient databaseClient;
+    private final ItemSearchIndex itemSearchIndex;
+
+    public Flux<ItemWithBookingsDto> findAllByOwner(Long ownerId) {
+        return databaseClient.sql("SELECT id, name, description, is_available FROM items " +
+                        "WHERE owner_id = :ownerId ORDER BY id")
+                .bind("ownerId", ownerId)
+                .map(row -> ItemWithBookingsDto.builder()
+                        .id(row.get("id", Long.class))
+                        .name(row.get("name", String.class))
+                        .description(row.get("description", String.class))
+                        .available(row.get("is_available", Boolean.class))
+                        .comments(new ArrayList<>())
+                        .build())
+                .all()
+                .buffer(BATCH_SIZE)
+                .concatMap(this::withBookingsAndComments)
+                .switchIfEmpty(checkUserExists(ownerId));
+    }
+
+    /**
+     * Порядок и фильтрация берутся из поискового индекса, из базы читаются только найденные вещи.
+     */
+    public Flux<ItemDto> search(String text) {
+        if (text == null || text.isBlank()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> Flux.fromIterable(itemSearchIndex.search(text, 0, Integer.MAX_VALUE)))
+                .buffer(BATCH_SIZE)
+                .concatMap(this::findAllInOrder);
+    }
+
+    private Flux<ItemDto> findAllInOrder(List<Long> ids) {
+        return databaseClient.sql("SELECT id, name, description, is_available, request_id FROM items " +
+                        "WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveItemReader::toItemDto)
+                .all()
+                .collectMap(ItemDto::getId, Function.identity())
+                .flatMapIterable(found -> ids.stream()
+                        .filter(found::containsKey)
+                        .map(found::get)
+                        .collect(Collectors.toList()));
+    }
+
+    private Flux<ItemWithBookingsDto> withBookingsAndComments(List<ItemWithBookingsDto> items) {
+        Map<Long, ItemWithBookingsDto> byId = items.stream()
+                .collect(Collectors.toMap(ItemWithBookingsDto::getId, Function.identity()));
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        Mono<Void> bookings = databaseClient.sql("SELECT item_id, id, booker_id, start_date, end_date FROM bookings " +
+                        "WHERE item_id IN (:ids) AND status = 'APPROVED' AND (end_date < :now OR start_date > :now)")
+                .bind("ids", ids)
+                .bind("now", now)
+                .map(row -> Map.entry(row.get("item_id", Long.class), new BookingShortDto(
+                        row.get("id", Long.class),
+                        row.get("booker_id", Long.class),
+                        row.get("start_date", LocalDateTime.class),
+                        row.get("end_date", LocalDateTime.class))))
+                .all()
+                .doOnNext(entry -> {
+                    ItemWithBookingsDto item = byId.get(entry.getKey());
+                    BookingShortDto booking = entry.getValue();
+                    if (booking.getEnd().isBefore(now)) {
+                        if (item.getLastBooking() == null || LAST_FIRST.compare(booking, item.getLastBooking()) < 0) {
+                            item.setLastBooking(booking);
+                        }
+                    } else if (item.getNextBooking() == null
+                            || NEXT_FIRST.compare(booking, item.getNextBooking()) < 0) {
+                        item.setNextBooking(booking);
+                    }
+                })
+                .then();
+        Mono<Void> comments = databaseClient.sql("SELECT c.id, c.item_id, c.text, c.created, u.name AS author_name " +
+                        "FROM comments c JOIN users u ON u.id = c.author_id " +
+                        "WHERE c.item_id IN (:ids) ORDER BY c.id")
+                .bind("ids", ids)
+                .map(row -> Map.entry(row.get("item_id", Long.class), CommentDto.builder()
+                        .id(row.get("id", Long.class))
+                        .text(row.get("text", String.class))
+                        .authorName(row.get("author_name", String.class))
+                        .created(row.get("created", LocalDateTime.class))
+                        .build()))
+                .all()
+                .doOnNext(entry -> byId.get(entry.getKey()).getComments().add(entry.getValue()))
+                .then();
+        return bookings.then(comments).thenMany(Flux.fromIterable(items));
+    }
+
+    private <T> Flux<T> checkUserExists(Long userId) {
+        return databaseClient.sql("SELECT COUNT(*) AS found FROM users WHERE id = :id")
+                .bind("id", userId)
+                .map(row -> row.get("found", Long.class))
+                .one()
+                .flatMapMany(found -> found == 0
+                        ? Flux.error(new NotFoundException("Пользователь не найден"))
+                        : Flux.empty());
+    }
+
+    static ItemDto toItemDto(Readable row) {
+        Long requestId = row.get("request_id", Long.class);
+        return new ItemDto(row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("is_available", Boolean.class),
+                null,
+                requestId != null ? requestId.intValue() : null);
+    }
+}
@@ -1,19 +1,59 @@
 package ru.practicum.shareit.item.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchDocument;
+import ru.practicum.shareit.request.dto.ItemAnswerDto;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findByOwnerId(Long ownerId);
 
-    @Query("SELECT i FROM Item i " +
+    List<Item> findByOwnerIdOrderByIdAsc(Long ownerId, Pageable pageable);
+
+    boolean existsByOwnerId(Long ownerId);
+
+    @Query("SELECT new ru.practicum.shareit.item.search.ItemSearchDocument(i.id, i.name, i.description, i.available) " +
+            "FROM Item i " +
             "WHERE i.available = true " +
-            "AND (UPPER(i.name) LIKE UPPER(CONCAT('%', ?1, '%')) " +
-            "OR UPPER(i.description) LIKE UPPER(CONCAT('%', ?1, '%')))")
-    List<Item> search(String text);
+            "AND i.id > :afterId " +
+            "ORDER BY i.id")
+    List<ItemSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Вещи для потоковой выдачи поиска: DTO вместо сущностей, чтобы прочитанные батчи не оставались
+     * в контексте персистентности.
+     */
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, r.id) " +
+            "FROM Item i LEFT JOIN i.request r " +
+            "WHERE i.id IN :ids")
+    List<ItemDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
 
     List<Item> findByRequestId(Long requestId);
+
+    /**
+     * Блокирует строки вещей до конца транзакции. Строки берутся в порядке id, поэтому пакеты,
+     * бронирующие одни и те же вещи, не могут взаимно заблокироваться.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(value = "SELECT id FROM items WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Ответы на все запросы страницы одним IN: владелец и запрос берутся из внешних ключей, без соединений.
+     */
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemAnswerDto(i.id, i.name, i.owner.id, i.request.id) " +
+            "FROM Item i " +
+            "WHERE i.request.id IN :requestIds " +
+            "ORDER BY i.id")
+    List<ItemAnswerDto> findAnswers(@Param("requestIds") Collection<Integer> requestIds);
 }
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Getter;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Locale;
+
+/**
+ * Снимок полей вещи, по которым идёт поиск. Текст хранится уже в верхнем регистре,
+ * чтобы сравнение повторяло семантику UPPER(...) LIKE UPPER(...) (см. {@link SearchPattern}).
+ */
+@Getter
+public class ItemSearchDocument {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final boolean available;
+
+    public ItemSearchDocument(Long id, String name, String description, Boolean available) {
+        this.id = id;
+        this.name = normalize(name);
+        this.description = normalize(description);
+        this.available = Boolean.TRUE.equals(available);
+    }
+
+    public static ItemSearchDocument of(Item item) {
+        return new ItemSearchDocument(item.getId(), item.getName(), item.getDescription(), item.getAvailable());
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : text.toUpperCase(Locale.ROOT);
+    }
+
+    boolean matches(SearchPattern pattern) {
+        return available && (matchesName(pattern) || matchesDescription(pattern));
+    }
+
+    boolean matchesName(SearchPattern pattern) {
+        return pattern.matches(name);
+    }
+
+    boolean matchesDescription(SearchPattern pattern) {
+        return pattern.matches(description);
+    }
+}
@@ -0,0 +1,245 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Триграммный инвертированный индекс по названию и описанию доступных вещей.
+ * <p>
+ * Запрос, в котором есть часть без подстановочных символов длиной от трёх символов, сводится
+ * к пересечению списков id для триграмм таких частей, после чего кандидаты проверяются образцом
+ * {@link SearchPattern}, поэтому результат совпадает с прежним LIKE '%text%', включая '%' и '_'
+ * внутри text. Остальные запросы проверяются перебором.
+ * Индекс строится при старте и обновляется после коммита транзакций, меняющих вещи.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex implements SmartInitializingSingleton {
+    static final int GRAM_LENGTH = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, ItemSearchDocument> documents = new TreeMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    public ItemSearchIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long lastId = 0;
+        int indexed = 0;
+        List<ItemSearchDocument> batch;
+        do {
+            batch = itemRepository.findSearchDocuments(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            batch.forEach(this::put);
+            indexed += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        log.info("Поисковый индекс вещей построен: {} документов", indexed);
+    }
+
+    /**
+     * Индексирует вещь после успешного коммита текущей транзакции (или сразу, если транзакции нет).
+     */
+    public void index(Item item) {
+        ItemSearchDocument document = ItemSearchDocument.of(item);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(document);
+                }
+            });
+        } else {
+            put(document);
+        }
+    }
+
+    /**
+     * Возвращает страницу id доступных вещей, в названии или описании которых встречается text.
+     * Совпадения по названию идут раньше совпадений только по описанию, внутри групп - по возрастанию id.
+     * Перебор останавливается, как только набрано offset + limit совпадений по названию.
+     */
+    public List<Long> search(String text, int offset, int limit) {
+        SearchPattern pattern = SearchPattern.of(text);
+        Set<Long> queryGrams = new HashSet<>();
+        pattern.literals().forEach(literal -> addGrams(literal, queryGrams));
+        int needed = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        lock.readLock().lock();
+        try {
+            List<Long> nameHits = new ArrayList<>();
+            List<Long> descriptionHits = new ArrayList<>();
+            Iterator<ItemSearchDocument> candidates = queryGrams.isEmpty()
+                    ? documents.values().iterator()
+                    : Arrays.stream(candidates(queryGrams)).mapToObj(documents::get).iterator();
+            while (candidates.hasNext() && nameHits.size() < needed) {
+                ItemSearchDocument document = candidates.next();
+                if (document == null || !document.isAvailable()) {
+                    continue;
+                }
+                if (document.matchesName(pattern)) {
+                    nameHits.add(document.getId());
+                } else if (descriptionHits.size() < needed && document.matchesDescription(pattern)) {
+                    descriptionHits.add(document.getId());
+                }
+            }
+            nameHits.addAll(descriptionHits);
+            if (offset >= nameHits.size()) {
+                return List.of();
+            }
+            return List.copyOf(nameHits.subList(offset, Math.min(nameHits.size(), needed)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            unindex(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void put(ItemSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            unindex(document.getId());
+            if (!document.isAvailable()) {
+                return;
+            }
+            documents.put(document.getId(), document);
+            for (long gram : grams(document)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(document.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long itemId) {
+        ItemSearchDocument previous = documents.remove(itemId);
+        if (previous == null) {
+            return;
+        }
+        for (long gram : grams(previous)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(itemId) && list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private long[] candidates(Set<Long> queryGrams) {
+        List<Postings> lists = new ArrayList<>(queryGrams.size());
+        for (Long gram : queryGrams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+
+        Postings smallest = lists.get(0);
+        long[] result = new long[smallest.size()];
+        int count = 0;
+        for (int i = 0; i < smallest.size(); i++) {
+            long id = smallest.get(i);
+            boolean inAll = true;
+            for (int j = 1; j < lists.size() && inAll; j++) {
+                inAll = lists.get(j).contains(id);
+            }
+            if (inAll) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static Set<Long> grams(ItemSearchDocument document) {
+        Set<Long> grams = new HashSet<>();
+        addGrams(document.getName(), grams);
+        addGrams(document.getDescription(), grams);
+        return grams;
+    }
+
+    private static void addGrams(String text, Set<Long> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+    }
+
+    /**
+     * Отсортированный по возрастанию список id без упаковки в Long.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поисковый запрос, разобранный так же, как его разбирал UPPER(...) LIKE UPPER(CONCAT('%', text, '%')):
+ * '%' совпадает с любой последовательностью символов, '_' - ровно с одним символом. Экранирования нет:
+ * Hibernate выводит LIKE без ESCAPE как LIKE ... ESCAPE '', так что '\' был обычным символом.
+ * Запрос без подстановочных символов сводится к поиску подстроки.
+ */
+final class SearchPattern {
+    private final List<Segment> segments;
+    private final List<String> literals;
+
+    private SearchPattern(List<Segment> segments, List<String> literals) {
+        this.segments = segments;
+        this.literals = literals;
+    }
+
+    static SearchPattern of(String text) {
+        String query = ItemSearchDocument.normalize(text);
+        List<Segment> segments = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        StringBuilder chars = new StringBuilder();
+        StringBuilder anyChar = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '%') {
+                addSegment(segments, chars, anyChar);
+                addLiteral(literals, literal);
+            } else if (c == '_') {
+                chars.append(c);
+                anyChar.append('1');
+                addLiteral(literals, literal);
+            } else {
+                chars.append(c);
+                anyChar.append('0');
+                literal.append(c);
+            }
+        }
+        addSegment(segments, chars, anyChar);
+        addLiteral(literals, literal);
+        return new SearchPattern(segments, literals);
+    }
+
+    /**
+     * Части запроса без подстановочных символов, по которым можно отобрать кандидатов в индексе.
+     */
+    List<String> literals() {
+        return literals;
+    }
+
+    boolean matches(String text) {
+        int from = 0;
+        for (Segment segment : segments) {
+            int position = segment.find(text, from);
+            if (position < 0) {
+                return false;
+            }
+            from = position + segment.length();
+        }
+        return true;
+    }
+
+    private static void addSegment(List<Segment> segments, StringBuilder chars, StringBuilder anyChar) {
+        if (chars.length() > 0) {
+            segments.add(new Segment(chars.toString(), anyChar.indexOf("1") < 0 ? null : anyChar.toString()));
+            chars.setLength(0);
+            anyChar.setLength(0);
+        }
+    }
+
+    private static void addLiteral(List<String> literals, StringBuilder literal) {
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Часть запроса между '%'. Для части без '_' mask равна null и поиск идёт через indexOf.
+     */
+    private record Segment(String chars, String mask) {
+        int length() {
+            return chars.length();
+        }
+
+        int find(String text, int from) {
+            if (mask == null) {
+                return text.indexOf(chars, from);
+            }
+            for (int start = from; start + chars.length() <= text.length(); start++) {
+                if (matchesAt(text, start)) {
+                    return start;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matchesAt(String text, int start) {
+            for (int i = 0; i < chars.length(); i++) {
+                if (mask.charAt(i) == '0' && text.charAt(start + i) != chars.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.item.cache.ItemView;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ItemService {
 
@@ -16,11 +21,17 @@ public interface ItemService {
 
     List<Item> getAllByOwner(Long ownerId);
 
-    List<Item> search(String text);
+    List<Item> search(String text, int from, int size);
+
+    Stream<ItemDto> streamSearch(String text);
 
     ItemWithBookingsDto getItemWithBookings(Long itemId, Long userId);
 
-    List<ItemWithBookingsDto> getAllItemsByOwner(Long userId);
+    ItemView getItemView(Long itemId, Long userId);
+
+    List<ItemWithBookingsDto> getAllItemsByOwner(Long userId, int from, int size);
+
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 
     CommentDto addComment(Long itemId, CommentDto commentDto, Long userId);
 }
@@ -1,36 +1,64 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.occupancy.BookedInterval;
+import ru.practicum.shareit.booking.occupancy.ItemOccupancyIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.cache.ItemChangedEvent;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
+    private static final int SEARCH_FETCH_BATCH_SIZE = 500;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemOccupancyIndex occupancyIndex;
+    private final ItemViewCache itemViewCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -42,8 +70,16 @@ public class ItemServiceImpl implements ItemService {
             throw new ValidationException("Поле available обязательно");
         }
 
+        if (item.getRequest() != null) {
+            int requestId = item.getRequest().getId();
+            item.setRequest(itemRequestRepository.findById(requestId)
+                    .orElseThrow(() -> new NotFoundException("Запрос с id=" + requestId + " не найден")));
+        }
+
         item.setOwner(owner);
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.index(savedItem);
+        return savedItem;
     }
 
     @Override
@@ -65,7 +101,10 @@ public class ItemServiceImpl implements ItemService {
             existingItem.setAvailable(updateData.getAvailable());
         }
 
-        return itemRepository.save(existingItem);
+        Item savedItem = itemRepository.save(existingItem);
+        itemSearchIndex.index(savedItem);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        return savedItem;
     }
 
     @Override
@@ -82,73 +121,156 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    @Transactional
-    public List<Item> search(String text) {
+    @Transactional(readOnly = true)
+    public List<Item> search(String text, int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
         if (text == null || text.isBlank()) {
             return List.of();
         }
-        return itemRepository.search(text);
+        return findAllInOrder(itemSearchIndex.search(text, from, size));
+    }
+
+    /**
+     * Батчи читаются уже после возврата из метода, по мере записи ответа, каждый в своей транзакции
+     * репозитория. Читаются DTO, а не сущности, поэтому в памяти остаётся только текущий батч.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Stream<ItemDto> streamSearch(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        List<Long> ids = itemSearchIndex.search(text, 0, Integer.MAX_VALUE);
+        int batches = (ids.size() + SEARCH_FETCH_BATCH_SIZE - 1) / SEARCH_FETCH_BATCH_SIZE;
+        return IntStream.range(0, batches)
+                .mapToObj(batch -> ids.subList(batch * SEARCH_FETCH_BATCH_SIZE,
+                        Math.min(ids.size(), (batch + 1) * SEARCH_FETCH_BATCH_SIZE)))
+                .map(batch -> inIndexOrder(batch, itemRepository.findDtosByIdIn(batch).stream()
+                        .collect(Collectors.toMap(ItemDto::getId, Function.identity()))))
+                .flatMap(List::stream);
+    }
+
+    private List<Item> findAllInOrder(List<Long> ids) {
+        List<Item> items = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += SEARCH_FETCH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + SEARCH_FETCH_BATCH_SIZE));
+            items.addAll(inIndexOrder(batch, itemRepository.findAllById(batch).stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()))));
+        }
+        return items;
+    }
+
+    /**
+     * Раскладывает найденное в порядке индекса. Вещи, которых уже нет в базе, убираются из индекса.
+     */
+    private <T> List<T> inIndexOrder(List<Long> ids, Map<Long, T> found) {
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T item = found.get(id);
+            if (item != null) {
+                ordered.add(item);
+            } else {
+                itemSearchIndex.remove(id);
+            }
+        }
+        return ordered;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemWithBookingsDto> getAllItemsByOwner(Long userId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+    public List<ItemWithBookingsDto> getAllItemsByOwner(Long userId, int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
 
-        List<Item> items = itemRepository.findByOwnerId(userId);
+        List<Item> items = itemRepository.findByOwnerIdOrderByIdAsc(userId, PageRequest.of(from / size, size));
+        if (items.isEmpty()) {
+            if (!userRepository.existsById(userId)) {
+                throw new NotFoundException("Пользователь не найден");
+            }
+            return List.of();
+        }
         List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        return assemble(items,
+                bookingRepository.findLastAndNextBookings(itemIds, LocalDateTime.now()),
+                commentRepository.findAllByItemIds(itemIds));
+    }
 
-        List<Booking> allBookings = bookingRepository.findAllApprovedBookingsByOwnerId(userId);
-        Map<Long, List<Booking>> bookingsByItemId = allBookings.stream()
-                .collect(Collectors.groupingBy(b -> b.getItem().getId()));
-
-        List<Comment> allComments = commentRepository.findAllByItemIds(itemIds);
-        Map<Long, List<Comment>> commentsByItemId = allComments.stream()
-                .collect(Collectors.groupingBy(c -> c.getItem().getId()));
+    /**
+     * Раскладывает бронирования и отзывы страницы по вещам. Выделено из getAllItemsByOwner,
+     * чтобы его можно было измерять отдельно от запросов (ItemGroupingBenchmark).
+     */
+    static List<ItemWithBookingsDto> assemble(List<Item> items, List<ItemBookingView> bookings,
+                                              List<Comment> comments) {
+        Map<Long, BookingShortDto> lastBookings = new HashMap<>();
+        Map<Long, BookingShortDto> nextBookings = new HashMap<>();
+        for (ItemBookingView view : bookings) {
+            if (view.isLast()) {
+                lastBookings.put(view.getItemId(), BookingMapper.toBookingShortDto(view));
+            } else {
+                nextBookings.put(view.getItemId(), BookingMapper.toBookingShortDto(view));
+            }
+        }
 
-        LocalDateTime now = LocalDateTime.now();
+        Map<Long, List<CommentDto>> commentsByItemId = comments.stream()
+                .collect(Collectors.groupingBy(c -> c.getItem().getId(),
+                        Collectors.mapping(CommentMapper::toDto, Collectors.toList())));
 
         return items.stream()
-                .map(item -> {
-                    List<Booking> itemBookings = bookingsByItemId.getOrDefault(item.getId(), List.of());
-
-                    BookingShortDto lastBooking = itemBookings.stream()
-                            .filter(b -> b.getEnd().isBefore(now))
-                            .max(Comparator.comparing(Booking::getEnd))
-                            .map(this::toBookingShortDto)
-                            .orElse(null);
-
-                    BookingShortDto nextBooking = itemBookings.stream()
-                            .filter(b -> b.getStart().isAfter(now))
-                            .min(Comparator.comparing(Booking::getStart))
-                            .map(this::toBookingShortDto)
-                            .orElse(null);
-
-                    List<CommentDto> comments = commentsByItemId.getOrDefault(item.getId(), List.of()).stream()
-                            .map(CommentMapper::toDto)
-                            .collect(Collectors.toList());
-
-                    return ItemWithBookingsDto.builder()
-                            .id(item.getId())
-                            .name(item.getName())
-                            .description(item.getDescription())
-                            .available(item.getAvailable())
-                            .lastBooking(lastBooking)
-                            .nextBooking(nextBooking)
-                            .comments(comments)
-                            .build();
-                })
+                .map(item -> ItemMapper.toItemWithBookingsDto(item,
+                        lastBookings.get(item.getId()),
+                        nextBookings.get(item.getId()),
+                        commentsByItemId.getOrDefault(item.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
-    private BookingShortDto toBookingShortDto(Booking booking) {
-        return BookingShortDto.builder()
-                .id(booking.getId())
-                .bookerId(booking.getBooker().getId())
-                .start(booking.getStart())
-                .end(booking.getEnd())
-                .build();
+    /**
+     * Будущее берётся из индекса занятости без запросов к базе. Завершившиеся бронирования индекс
+     * не хранит, поэтому часть окна до текущего момента читается из базы.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь не найдена");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BookedInterval> intervals = new LinkedHashMap<>();
+        if (from.isBefore(now)) {
+            LocalDateTime pastEnd = to.isBefore(now) ? to : now;
+            bookingRepository.findOverlappingIntervals(List.of(itemId), ItemOccupancyIndex.OCCUPYING_STATUSES,
+                            from, pastEnd)
+                    .forEach(interval -> intervals.put(interval.getBookingId(), interval));
+        }
+        if (to.isAfter(now)) {
+            occupancyIndex.busy(itemId, from.isAfter(now) ? from : now, to)
+                    .forEach(interval -> intervals.put(interval.getBookingId(), interval));
+        }
+
+        List<TimeSlotDto> busy = new ArrayList<>();
+        List<TimeSlotDto> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        List<BookedInterval> ordered = new ArrayList<>(intervals.values());
+        ordered.sort(Comparator.comparing(BookedInterval::getStart));
+        for (BookedInterval interval : ordered) {
+            busy.add(new TimeSlotDto(interval.getStart(), interval.getEnd(), interval.getStatus()));
+            if (interval.getStart().isAfter(freeFrom)) {
+                free.add(new TimeSlotDto(freeFrom, interval.getStart(), null));
+            }
+            if (interval.getEnd().isAfter(freeFrom)) {
+                freeFrom = interval.getEnd();
+            }
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new TimeSlotDto(freeFrom, to, null));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, free, busy);
     }
 
     @Transactional
@@ -177,32 +299,44 @@ public class ItemServiceImpl implements ItemService {
         comment.setCreated(LocalDateTime.now());
 
         Comment savedComment = commentRepository.save(comment);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
         return CommentMapper.toDto(savedComment);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ItemWithBookingsDto getItemWithBookings(Long itemId, Long userId) {
+        return getItemView(itemId, userId).getItem();
+    }
+
+    /**
+     * Вещь берётся из кэша второго уровня, а карточка целиком — из {@link ItemViewCache},
+     * поэтому повторный просмотр не обращается к базе и не занимает соединение.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ItemView getItemView(Long itemId, Long userId) {
         Item item = getById(itemId);
+        boolean owner = item.getOwner().getId().equals(userId);
+        return itemViewCache.get(itemId, owner, () -> ItemView.of(loadItemWithBookings(item, owner), owner));
+    }
+
+    private ItemWithBookingsDto loadItemWithBookings(Item item, boolean owner) {
+        Long itemId = item.getId();
         List<CommentDto> comments = getCommentsForItem(itemId);
 
         BookingShortDto lastBooking = null;
         BookingShortDto nextBooking = null;
 
-        if (item.getOwner().getId().equals(userId)) {
+        if (owner) {
             LocalDateTime now = LocalDateTime.now();
-            List<Booking> bookings = bookingRepository.findApprovedBookingsForItem(itemId);
-
-            lastBooking = bookings.stream()
-                    .filter(b -> b.getEnd().isBefore(now))
-                    .max(Comparator.comparing(Booking::getEnd))
-                    .map(this::convertToShortDto)
+            lastBooking = bookingRepository.findLastBookings(itemId, BookingStatus.APPROVED, now, Limit.of(1))
+                    .stream()
+                    .findFirst()
                     .orElse(null);
-
-            nextBooking = bookings.stream()
-                    .filter(b -> b.getStart().isAfter(now))
-                    .min(Comparator.comparing(Booking::getStart))
-                    .map(this::convertToShortDto)
+            nextBooking = bookingRepository.findNextBookings(itemId, BookingStatus.APPROVED, now, Limit.of(1))
+                    .stream()
+                    .findFirst()
                     .orElse(null);
         }
 
@@ -214,13 +348,4 @@ public class ItemServiceImpl implements ItemService {
                 .map(CommentMapper::toDto)
                 .collect(Collectors.toList());
     }
-
-    private BookingShortDto convertToShortDto(Booking booking) {
-        return BookingShortDto.builder()
-                .id(booking.getId())
-                .bookerId(booking.getBooker().getId())
-                .start(booking.getStart())
-                .end(booking.getEnd())
-                .build();
-    }
 }
@@ -1,12 +1,88 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.common.metrics.QueryBudget;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestSlice;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.request.stream.ItemRequestStream;
+
+import java.util.List;
 
 /**
- * TODO Sprint add-item-requests.
+ * Запросы вещей с ответами. Списки отдаются страницами от новых к старым; курсор следующей страницы
+ * приходит в заголовке X-Next-Cursor и передаётся обратно параметром after.
+ * Новые запросы других пользователей можно получать без опроса через SSE на /requests/stream.
  */
 @RestController
 @RequestMapping(path = "/requests")
 public class ItemRequestController {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final ItemRequestService itemRequestService;
+    private final ItemRequestStream itemRequestStream;
+
+    public ItemRequestController(ItemRequestService itemRequestService, ItemRequestStream itemRequestStream) {
+        this.itemRequestService = itemRequestService;
+        this.itemRequestStream = itemRequestStream;
+    }
+
+    @PostMapping
+    public ItemRequestDto create(@Valid @RequestBody ItemRequestDto requestDto,
+                                 @RequestHeader(USER_ID_HEADER) Long userId) {
+        return itemRequestService.create(requestDto, userId);
+    }
+
+    @GetMapping
+    @QueryBudget(2)
+    public ResponseEntity<List<ItemRequestDto>> getOwn(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size,
+                                                       @RequestParam(required = false) String after) {
+        if (after != null) {
+            return toResponse(itemRequestService.getOwn(userId, ItemRequestCursor.parse(after), size));
+        }
+        return toResponse(itemRequestService.getOwn(userId, from, size));
+    }
+
+    @GetMapping("/all")
+    @QueryBudget(3)
+    public ResponseEntity<List<ItemRequestDto>> getAll(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                       @RequestParam(defaultValue = "0") int from,
+                                                       @RequestParam(defaultValue = "10") int size,
+                                                       @RequestParam(required = false) String after) {
+        if (after != null) {
+            return toResponse(itemRequestService.getAll(userId, ItemRequestCursor.parse(after), size));
+        }
+        return toResponse(itemRequestService.getAll(userId, from, size));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @QueryBudget(2)
+    public SseEmitter stream(@RequestHeader(USER_ID_HEADER) Long userId,
+                             @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        return itemRequestStream.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping("/{requestId}")
+    @QueryBudget(3)
+    public ItemRequestDto getById(@PathVariable Integer requestId,
+                                  @RequestHeader(USER_ID_HEADER) Long userId) {
+        return itemRequestService.getById(requestId, userId);
+    }
+
+    private static ResponseEntity<List<ItemRequestDto>> toResponse(ItemRequestSlice slice) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, slice.getNext().asString());
+        }
+        return response.body(slice.getContent());
+    }
 }
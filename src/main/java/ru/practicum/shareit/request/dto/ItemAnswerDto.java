@@ -0,0 +1,21 @@
+package ru.practicum.shareit.request.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Вещь, добавленная в ответ на запрос. Читается конструктором прямо в JPQL, без загрузки сущностей.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemAnswerDto {
+    private Long id;
+    private String name;
+    private Long ownerId;
+
+    @JsonIgnore
+    private Integer requestId;
+}
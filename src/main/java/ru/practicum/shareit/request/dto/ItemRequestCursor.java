@@ -0,0 +1,40 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Позиция в списке запросов, отсортированном по (created DESC, id DESC).
+ * В запросе передаётся как after=&lt;created&gt;,&lt;id&gt;, например after=2024-05-01T10:00:00,42.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemRequestCursor {
+    private final LocalDateTime created;
+    private final int id;
+
+    public static ItemRequestCursor of(ItemRequestDto request) {
+        return new ItemRequestCursor(request.getCreated(), request.getId());
+    }
+
+    public static ItemRequestCursor parse(String value) {
+        int separator = value.lastIndexOf(',');
+        if (separator < 0) {
+            throw new ValidationException("Некорректный курсор: " + value);
+        }
+        try {
+            return new ItemRequestCursor(LocalDateTime.parse(value.substring(0, separator).trim()),
+                    Integer.parseInt(value.substring(separator + 1).trim()));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new ValidationException("Некорректный курсор: " + value);
+        }
+    }
+
+    public String asString() {
+        return created + "," + id;
+    }
+}
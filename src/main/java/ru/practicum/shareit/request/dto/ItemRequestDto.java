@@ -1,16 +1,24 @@
 package ru.practicum.shareit.request.dto;
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class ItemRequestDto {
     private int id;
+
+    @NotBlank(message = "Описание не может быть пустым")
+    @Size(max = 1000, message = "Описание слишком длинное")
     private String description;
+
     private LocalDateTime created;
+    private List<ItemAnswerDto> items;
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ItemRequestSlice {
+    private List<ItemRequestDto> content;
+    private ItemRequestCursor next;
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -3,15 +3,19 @@ package ru.practicum.shareit.request.mapper;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemAnswerDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.List;
+
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class ItemRequestMapper {
-    public static ItemRequestDto toDto(ItemRequest request) {
+    public static ItemRequestDto toDto(ItemRequest request, List<ItemAnswerDto> items) {
         return new ItemRequestDto(
                 request.getId(),
                 request.getDescription(),
-                request.getCreated()
+                request.getCreated(),
+                items
         );
     }
 
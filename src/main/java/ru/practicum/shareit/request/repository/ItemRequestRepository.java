@@ -0,0 +1,16 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import ru.practicum.shareit.request.ItemRequest;
+
+import java.util.List;
+
+public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer>,
+        JpaSpecificationExecutor<ItemRequest> {
+    /**
+     * Чужие запросы, созданные после запроса afterId, для досылки пропущенных событий /requests/stream.
+     */
+    List<ItemRequest> findByIdGreaterThanAndRequestorIdNotOrderByIdAsc(int afterId, Long requestorId, Limit limit);
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.request.repository;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ItemRequestSpecifications {
+    public static Specification<ItemRequest> byRequestor(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("requestor").get("id"), userId);
+    }
+
+    public static Specification<ItemRequest> notByRequestor(Long userId) {
+        return (root, query, cb) -> cb.notEqual(root.get("requestor").get("id"), userId);
+    }
+
+    /**
+     * Запросы строго после курсора в порядке (created DESC, id DESC).
+     */
+    public static Specification<ItemRequest> after(ItemRequestCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("created"), cursor.getCreated()),
+                cb.and(cb.equal(root.get("created"), cursor.getCreated()),
+                        cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
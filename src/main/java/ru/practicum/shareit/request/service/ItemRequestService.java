@@ -0,0 +1,19 @@
+package ru.practicum.shareit.request.service;
+
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestSlice;
+
+public interface ItemRequestService {
+    ItemRequestDto create(ItemRequestDto requestDto, Long userId);
+
+    ItemRequestDto getById(Integer requestId, Long userId);
+
+    ItemRequestSlice getOwn(Long userId, int from, int size);
+
+    ItemRequestSlice getOwn(Long userId, ItemRequestCursor after, int size);
+
+    ItemRequestSlice getAll(Long userId, int from, int size);
+
+    ItemRequestSlice getAll(Long userId, ItemRequestCursor after, int size);
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.request.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemAnswerDto;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestSlice;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.ItemRequestSpecifications;
+import ru.practicum.shareit.request.stream.ItemRequestCreatedEvent;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Timed("shareit.service")
+@Transactional(readOnly = true)
+public class ItemRequestServiceImpl implements ItemRequestService {
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Direction.DESC, "created", "id");
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public ItemRequestDto create(ItemRequestDto requestDto, Long userId) {
+        User requestor = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        if (requestDto.getDescription() == null || requestDto.getDescription().isBlank()) {
+            throw new ValidationException("Описание не может быть пустым");
+        }
+
+        // База хранит время с точностью до микросекунд, а курсор страницы строится по created:
+        // клиент должен получить то же значение, которое потом прочитается из базы.
+        ItemRequest request = ItemRequest.builder()
+                .description(requestDto.getDescription())
+                .requestor(requestor)
+                .created(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                .build();
+        ItemRequestDto created = ItemRequestMapper.toDto(itemRequestRepository.save(request), List.of());
+        eventPublisher.publishEvent(new ItemRequestCreatedEvent(created, userId));
+        return created;
+    }
+
+    @Override
+    public ItemRequestDto getById(Integer requestId, Long userId) {
+        checkUserExists(userId);
+        ItemRequest request = itemRequestRepository.findById(requestId)
+                .orElseThrow(() -> new NotFoundException("Запрос не найден"));
+        return withAnswers(List.of(request)).get(0);
+    }
+
+    @Override
+    public ItemRequestSlice getOwn(Long userId, int from, int size) {
+        return checkNotEmpty(findSlice(ItemRequestSpecifications.byRequestor(userId), null, offset(from, size), size),
+                userId);
+    }
+
+    @Override
+    public ItemRequestSlice getOwn(Long userId, ItemRequestCursor after, int size) {
+        return checkNotEmpty(findSlice(ItemRequestSpecifications.byRequestor(userId), after, 0, size), userId);
+    }
+
+    @Override
+    public ItemRequestSlice getAll(Long userId, int from, int size) {
+        long offset = offset(from, size);
+        checkUserExists(userId);
+        return findSlice(ItemRequestSpecifications.notByRequestor(userId), null, offset, size);
+    }
+
+    @Override
+    public ItemRequestSlice getAll(Long userId, ItemRequestCursor after, int size) {
+        checkUserExists(userId);
+        return findSlice(ItemRequestSpecifications.notByRequestor(userId), after, 0, size);
+    }
+
+    private static long offset(int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
+        return (long) (from / size) * size;
+    }
+
+    /**
+     * Страница запросов в порядке (created DESC, id DESC): после курсора - поиском по индексу,
+     * без курсора - со смещением, как в списках бронирований.
+     */
+    private ItemRequestSlice findSlice(Specification<ItemRequest> scope, ItemRequestCursor after, long offset,
+                                       int size) {
+        if (size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
+        Specification<ItemRequest> spec = after != null ? scope.and(ItemRequestSpecifications.after(after)) : scope;
+
+        Window<ItemRequest> window = itemRequestRepository.findBy(spec, query -> query
+                .sortBy(KEYSET_SORT)
+                .limit(size)
+                .scroll(offset == 0 ? ScrollPosition.offset() : ScrollPosition.offset(offset - 1)));
+
+        List<ItemRequestDto> content = withAnswers(window.getContent());
+        if (!window.hasNext() || content.isEmpty()) {
+            return new ItemRequestSlice(content, null);
+        }
+        return new ItemRequestSlice(content, ItemRequestCursor.of(content.get(content.size() - 1)));
+    }
+
+    /**
+     * Ответы на все запросы страницы загружаются одним запросом и раскладываются в памяти.
+     */
+    private List<ItemRequestDto> withAnswers(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<ItemAnswerDto>> answers = itemRepository.findAnswers(requests.stream()
+                        .map(ItemRequest::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(ItemAnswerDto::getRequestId));
+        return requests.stream()
+                .map(request -> ItemRequestMapper.toDto(request, answers.getOrDefault(request.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Для своих запросов существование пользователя проверяется только на пустой странице: непустая
+     * уже доказывает, что автор есть. Чужие запросы о нём ничего не говорят, там проверка всегда.
+     */
+    private ItemRequestSlice checkNotEmpty(ItemRequestSlice slice, Long userId) {
+        if (slice.getContent().isEmpty()) {
+            checkUserExists(userId);
+        }
+        return slice;
+    }
+
+    private void checkUserExists(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+
+/**
+ * Создан новый запрос вещи. Рассылается подписчикам {@link ItemRequestStream} после коммита.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemRequestCreatedEvent {
+    private final ItemRequestDto request;
+    private final Long requestorId;
+}
@@ -0,0 +1,206 @@
+package ru.practicum.shareit.request.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поток новых запросов вещей для GET /requests/stream вместо периодического опроса /requests/all.
+ * <p>
+ * Событие сериализуется в JSON один раз, и один и тот же кадр раскладывается по очередям всех подписчиков,
+ * кроме автора запроса. Очереди ограничены и при переполнении теряют самые старые кадры
+ * ({@link StreamSubscriber}), так что медленный клиент не задерживает ни публикацию, ни остальных.
+ * Отправка идёт на виртуальных потоках и только пока очередь не пуста: простаивающее соединение не держит
+ * ни потока, ни буферов, кроме самого эмиттера. Раз в heartbeat-interval всем уходит комментарий,
+ * чтобы прокси не закрывали молчащие соединения.
+ * <p>
+ * Id события - это id сохранённого запроса, поэтому он не меняется после перезапуска. Последние replay-size
+ * событий хранятся в памяти, и переподключившийся клиент получает пропущенное по заголовку Last-Event-ID.
+ * Если такого события в памяти уже нет (вытеснено или приложение перезапускалось), пропущенные запросы
+ * читаются из базы по id.
+ */
+@Slf4j
+@Component
+public class ItemRequestStream implements DisposableBean {
+    static final String EVENT_NAME = "request";
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final UserRepository userRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int replaySize;
+    private final Duration timeout;
+    private final Set<StreamSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ArrayDeque<Frame> recent = new ArrayDeque<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("request-stream-heartbeat").daemon().factory());
+    private final Counter dropped;
+
+    public ItemRequestStream(UserRepository userRepository, ItemRequestRepository itemRequestRepository,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${shareit.requests.stream.buffer-size:64}") int bufferSize,
+                             @Value("${shareit.requests.stream.replay-size:256}") int replaySize,
+                             @Value("${shareit.requests.stream.timeout:30m}") Duration timeout,
+                             @Value("${shareit.requests.stream.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.userRepository = userRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeout = timeout;
+        this.dropped = Counter.builder("shareit.requests.stream.dropped")
+                .description("Кадры, вытесненные из переполненных очередей подписчиков")
+                .register(meterRegistry);
+        Gauge.builder("shareit.requests.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        long interval = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        StreamSubscriber subscriber = new StreamSubscriber(userId, emitter, bufferSize, dropped);
+        emitter.onCompletion(() -> remove(subscriber));
+        // Истёкшую подписку закрываем сами, иначе Spring MVC отдаст AsyncRequestTimeoutException обработчикам ошибок.
+        // Клиент EventSource переподключится и продолжит с Last-Event-ID.
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        // Первый кадр сразу отправляет заголовки ответа, чтобы клиент знал, что подписка принята.
+        offer(subscriber, HEARTBEAT);
+        synchronized (this) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRequestCreated(ItemRequestCreatedEvent event) {
+        Frame frame = frame(event.getRequest(), event.getRequestorId());
+        if (frame == null) {
+            return;
+        }
+        synchronized (this) {
+            recent.addLast(frame);
+            if (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+            for (StreamSubscriber subscriber : subscribers) {
+                deliver(subscriber, frame);
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        for (StreamSubscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.getEmitter().complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Досылает события после lastEventId. Транзакции коммитятся не в порядке id, поэтому в памяти ищется
+     * само событие lastEventId и досылается всё, что опубликовано после него. Иначе запросы читаются из базы:
+     * это происходит под блокировкой потока, чтобы новые события не проскочили между чтением и подпиской.
+     */
+    private void replay(StreamSubscriber subscriber, long lastEventId) {
+        boolean found = false;
+        for (Frame frame : recent) {
+            if (found) {
+                deliver(subscriber, frame);
+            } else {
+                found = frame.id() == lastEventId;
+            }
+        }
+        if (found) {
+            return;
+        }
+        int afterId = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, lastEventId));
+        for (ItemRequest request : itemRequestRepository.findByIdGreaterThanAndRequestorIdNotOrderByIdAsc(
+                afterId, subscriber.getUserId(), Limit.of(replaySize))) {
+            Frame frame = frame(ItemRequestMapper.toDto(request, List.of()), null);
+            if (frame != null) {
+                offer(subscriber, frame.data());
+            }
+        }
+    }
+
+    private Frame frame(ItemRequestDto request, Long requestorId) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            log.error("Не удалось сериализовать запрос {} для потока", request.getId(), e);
+            return null;
+        }
+        return new Frame(request.getId(), requestorId,
+                SseEmitter.event().id(String.valueOf(request.getId())).name(EVENT_NAME).data(json).build());
+    }
+
+    private void heartbeat() {
+        for (StreamSubscriber subscriber : subscribers) {
+            offer(subscriber, HEARTBEAT);
+        }
+    }
+
+    private void deliver(StreamSubscriber subscriber, Frame frame) {
+        if (!frame.requestorId().equals(subscriber.getUserId())) {
+            offer(subscriber, frame.data());
+        }
+    }
+
+    private void offer(StreamSubscriber subscriber, Set<DataWithMediaType> data) {
+        if (subscriber.offer(data)) {
+            senders.execute(subscriber::drain);
+        }
+    }
+
+    private void remove(StreamSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    private record Frame(long id, Long requestorId, Set<DataWithMediaType> data) {
+    }
+}
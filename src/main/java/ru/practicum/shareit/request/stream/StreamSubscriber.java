@@ -0,0 +1,88 @@
+package ru.practicum.shareit.request.stream;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+
+/**
+ * Одно SSE-соединение и его очередь кадров.
+ * <p>
+ * Очередь ограничена: если клиент читает медленнее, чем приходят события, самые старые кадры
+ * вытесняются, а публикация никогда не ждёт сокет. Разрывы клиент видит по пропущенным id событий.
+ * Отправкой в каждый момент занят не больше чем один поток: первый положивший кадр в пустую очередь
+ * получает true и запускает {@link #drain()}, остальные только добавляют кадры.
+ */
+final class StreamSubscriber {
+    private final Long userId;
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Counter dropped;
+    private final ArrayDeque<Set<DataWithMediaType>> buffer = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    StreamSubscriber(Long userId, SseEmitter emitter, int capacity, Counter dropped) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.dropped = dropped;
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Кладёт кадр в очередь. Возвращает true, если вызвавший должен запустить отправку.
+     */
+    synchronized boolean offer(Set<DataWithMediaType> frame) {
+        if (closed) {
+            return false;
+        }
+        if (buffer.size() == capacity) {
+            buffer.pollFirst();
+            dropped.increment();
+        }
+        buffer.addLast(frame);
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    void drain() {
+        Set<DataWithMediaType> frame;
+        while ((frame = next()) != null) {
+            try {
+                emitter.send(frame);
+            } catch (IOException | IllegalStateException e) {
+                // Клиент ушёл или соединение уже завершено: контейнер сообщит об этом через onError/onCompletion.
+                close();
+                return;
+            }
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        draining = false;
+        buffer.clear();
+    }
+
+    private synchronized Set<DataWithMediaType> next() {
+        Set<DataWithMediaType> frame = buffer.pollFirst();
+        if (frame == null) {
+            draining = false;
+        }
+        return frame;
+    }
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.user;
 
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.common.ETags;
+import ru.practicum.shareit.common.metrics.QueryBudget;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.service.UserService;
@@ -31,15 +35,34 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public UserDto getById(@PathVariable Long userId) {
-        return UserMapper.toDto(userService.getById(userId));
+    @QueryBudget(1)
+    public ResponseEntity<UserDto> getById(@PathVariable Long userId, WebRequest request) {
+        User user = userService.getById(userId);
+        String etag = ETags.of("u", user.getId(), user.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(UserMapper.toDto(user));
     }
 
+    /**
+     * ETag считается до чтения списка, поэтому тело может оказаться новее него, но не старше:
+     * в худшем случае следующий запрос получит список ещё раз.
+     */
     @GetMapping
-    public List<UserDto> getAll() {
-        return userService.getAll().stream()
-                .map(UserMapper::toDto)
-                .collect(Collectors.toList());
+    @QueryBudget(2)
+    public ResponseEntity<List<UserDto>> getAll(WebRequest request) {
+        String etag = userService.getAllVersion().toEtag("users");
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(userService.getAll().stream()
+                        .map(UserMapper::toDto)
+                        .collect(Collectors.toList()));
     }
 
     @DeleteMapping("/{userId}")
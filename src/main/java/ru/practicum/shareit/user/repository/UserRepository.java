@@ -1,8 +1,13 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.common.VersionStamp;
 import ru.practicum.shareit.user.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
+
+    @Query("SELECT new ru.practicum.shareit.common.VersionStamp(count(u), max(u.id), sum(u.version)) FROM User u")
+    VersionStamp findVersionStamp();
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.service;
 
+import ru.practicum.shareit.common.VersionStamp;
 import ru.practicum.shareit.user.User;
 import java.util.List;
 
@@ -13,5 +14,7 @@ public interface UserService {
 
     List<User> getAll();
 
+    VersionStamp getAllVersion();
+
     void delete(Long userId);
 }
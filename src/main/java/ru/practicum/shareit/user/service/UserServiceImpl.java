@@ -1,10 +1,19 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.occupancy.ItemOccupancyIndex;
+import ru.practicum.shareit.common.VersionStamp;
 import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemChangedEvent;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -12,9 +21,13 @@ import java.util.*;
 
 @Service
 @RequiredArgsConstructor
+@Timed("shareit.service")
 @Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final ItemOccupancyIndex occupancyIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -29,8 +42,10 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public User update(Long userId, User user) {
         User existingUser = getById(userId);
-        if (user.getName() != null) {
+        if (user.getName() != null && !user.getName().equals(existingUser.getName())) {
             existingUser.setName(user.getName());
+            // Имя пользователя показывается в его отзывах на карточках вещей.
+            eventPublisher.publishEvent(ItemChangedEvent.allItems());
         }
         if (user.getEmail() != null && !user.getEmail().equals(existingUser.getEmail())) {
             if (userRepository.existsByEmail(user.getEmail())) {
@@ -54,9 +69,25 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public VersionStamp getAllVersion() {
+        return userRepository.findVersionStamp();
+    }
+
     @Override
     @Transactional
     public void delete(Long userId) {
+        occupancyIndex.releaseUser(userId);
         userRepository.deleteById(userId);
+        // Вещи пользователя удаляются каскадом в базе, мимо Hibernate, а ссылки других вещей
+        // на его запросы обнуляются, поэтому регион вещей в кэше второго уровня сбрасывается целиком.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Item.class);
+            }
+        });
+        eventPublisher.publishEvent(ItemChangedEvent.allItems());
     }
 }
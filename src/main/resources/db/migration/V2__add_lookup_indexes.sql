@@ -0,0 +1,14 @@
+-- Списки бронирований автора: WHERE booker_id = ? [AND ...] ORDER BY start_date DESC
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC);
+
+-- Бронирования вещи по статусу и времени: last/next booking, списки владельца после соединения с items
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- findByOwnerId и соединение bookings -> items по владельцу
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+
+-- findByRequestId
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+-- Комментарии к вещи и к списку вещей владельца
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
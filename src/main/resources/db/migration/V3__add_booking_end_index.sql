@@ -0,0 +1,2 @@
+-- Последнее завершённое бронирование вещи: WHERE item_id = ? AND status = ? AND end_date < ? ORDER BY end_date DESC LIMIT 1
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_end ON bookings (item_id, status, end_date);
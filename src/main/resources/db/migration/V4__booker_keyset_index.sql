@@ -0,0 +1,3 @@
+-- Keyset-пагинация списка автора: WHERE booker_id = ? AND (start_date, id) < (?, ?) ORDER BY start_date DESC, id DESC
+DROP INDEX IF EXISTS idx_bookings_booker_start;
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start_id ON bookings (booker_id, start_date DESC, id DESC);
@@ -0,0 +1,5 @@
+-- Счётчик изменений строки: @Version для оптимистичной блокировки и источник ETag.
+-- Изменения в обход Hibernate (условные UPDATE бронирований) увеличивают его сами.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
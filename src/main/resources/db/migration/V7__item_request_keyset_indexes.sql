@@ -0,0 +1,5 @@
+-- Свои запросы: WHERE requestor_id = ? AND (created, id) < (?, ?) ORDER BY created DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created_id ON requests (requestor_id, created DESC, id DESC);
+
+-- Чужие запросы: WHERE requestor_id <> ? AND (created, id) < (?, ?) ORDER BY created DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_requests_created_id ON requests (created DESC, id DESC);
@@ -0,0 +1,152 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalRequestTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        item = itemRepository.save(new Item(null, "saw", "description", true, owner, null));
+    }
+
+    @Test
+    void userIsNotModifiedUntilUpdated() throws Exception {
+        String etag = etagOf(get("/users/{userId}", owner.getId()));
+
+        assertNotModified(get("/users/{userId}", owner.getId()), etag);
+
+        userService.update(owner.getId(), new User(null, "renamed", null));
+        assertNotEquals(etag, etagOf(get("/users/{userId}", owner.getId())));
+    }
+
+    @Test
+    void userListCostsOneQueryWhenNotModified() throws Exception {
+        String etag = etagOf(get("/users"));
+        statistics.clear();
+
+        assertNotModified(get("/users"), etag);
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        testData.user("another");
+        assertNotEquals(etag, etagOf(get("/users")));
+    }
+
+    @Test
+    void bookingListChangesWithBookingItemAndBooker() throws Exception {
+        Long bookingId = bookingService.create(slot(), booker.getId()).getId();
+        String etag = etagOf(bookerList("ALL"));
+        assertNotModified(bookerList("ALL"), etag);
+
+        bookingService.approve(bookingId, owner.getId(), true);
+        String approved = etagOf(bookerList("ALL"));
+        assertNotEquals(etag, approved);
+
+        itemService.update(item.getId(), new Item(null, "hand saw", null, null, null, null), owner.getId());
+        String renamed = etagOf(bookerList("ALL"));
+        assertNotEquals(approved, renamed);
+
+        userService.update(booker.getId(), new User(null, "renamed", null));
+        assertNotEquals(renamed, etagOf(bookerList("ALL")));
+    }
+
+    @Test
+    void timeDependentStatesHaveNoEtag() throws Exception {
+        bookingService.create(slot(), booker.getId());
+
+        mockMvc.perform(bookerList("FUTURE"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void bookingIsNotModifiedOnlyForParticipants() throws Exception {
+        Long bookingId = bookingService.create(slot(), booker.getId()).getId();
+        String etag = etagOf(get("/bookings/{bookingId}", bookingId).header("X-Sharer-User-Id", owner.getId()));
+
+        assertNotModified(get("/bookings/{bookingId}", bookingId).header("X-Sharer-User-Id", booker.getId()), etag);
+        mockMvc.perform(get("/bookings/{bookingId}", bookingId)
+                        .header("X-Sharer-User-Id", testData.user("stranger").getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().is4xxClientError());
+    }
+
+    private MockHttpServletRequestBuilder bookerList(String state) {
+        return get("/bookings")
+                .param("state", state)
+                .header("X-Sharer-User-Id", booker.getId());
+    }
+
+    private String etagOf(MockHttpServletRequestBuilder request) throws Exception {
+        String etag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private void assertNotModified(MockHttpServletRequestBuilder request, String etag) throws Exception {
+        mockMvc.perform(request.header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    private BookingDto slot() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        return BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(start.plusDays(1))
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Вставки без id в обход Hibernate берут ключ из той же последовательности и не сталкиваются с пулами id.
+ */
+@SpringBootTest
+class EntityIdSequenceTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void insertsWithoutIdDoNotCollideWithPooledIds() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(userRepository.save(TestData.newUser("pooled")).getId());
+            String email = TestData.email("raw");
+            jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('raw', ?)", email);
+            ids.add(jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email));
+            ids.add(userRepository.save(TestData.newUser("pooled")).getId());
+        }
+
+        assertEquals(9, ids.size());
+        List<Long> stored = jdbcTemplate.queryForList("SELECT id FROM users", Long.class);
+        assertEquals(stored.size(), new HashSet<>(stored).size());
+    }
+}
@@ -0,0 +1,171 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.metrics.QueryBudget;
+import ru.practicum.shareit.common.metrics.QueryBudgetExceededException;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Данные разнесены по нескольким владельцам, арендаторам и вещам, а кэш второго уровня сбрасывается
+ * перед каждым запросом, чтобы N+1 не прятался за попаданиями в кэш.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(QueryGuardTest.WastefulController.class)
+class QueryGuardTest {
+    private static final int ITEMS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User booker;
+    private Long itemId;
+    private Long bookingId;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemService.create(new Item(null, "guarded tool " + i, "description", true, null, null),
+                    owner.getId());
+            User author = testData.user("author");
+            bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(2), item, author,
+                    BookingStatus.APPROVED, null));
+            commentRepository.save(Comment.builder()
+                    .text("fine")
+                    .item(item)
+                    .author(author)
+                    .created(now.minusDays(1))
+                    .build());
+            bookingId = bookingRepository.save(new Booking(null, now.plusDays(i + 1), now.plusDays(i + 2), item,
+                    booker, BookingStatus.WAITING, null)).getId();
+            itemId = item.getId();
+        }
+    }
+
+    @Test
+    void itemReadsStayWithinBudget() throws Exception {
+        perform(get("/items/{itemId}", itemId).header("X-Sharer-User-Id", owner.getId()));
+        perform(get("/items").header("X-Sharer-User-Id", owner.getId()));
+        perform(get("/items/search").param("text", "guarded"));
+    }
+
+    @Test
+    void bookingReadsStayWithinBudget() throws Exception {
+        perform(get("/bookings/{bookingId}", bookingId).header("X-Sharer-User-Id", booker.getId()));
+        perform(get("/bookings").header("X-Sharer-User-Id", booker.getId()));
+        perform(get("/bookings/owner").header("X-Sharer-User-Id", owner.getId()));
+        perform(get("/bookings/owner").param("state", "PAST").header("X-Sharer-User-Id", owner.getId()));
+    }
+
+    @Test
+    void userReadsStayWithinBudget() throws Exception {
+        perform(get("/users/{userId}", owner.getId()));
+        perform(get("/users"));
+    }
+
+    @Test
+    void requestReadsStayWithinBudget() throws Exception {
+        Integer requestId = null;
+        for (int i = 0; i < 3; i++) {
+            requestId = itemRequestService.create(new ItemRequestDto(0, "need " + i, null, null), booker.getId())
+                    .getId();
+            ItemRequest reference = new ItemRequest();
+            reference.setId(requestId);
+            itemService.create(new Item(null, "answer " + i, "description", true, null, reference), owner.getId());
+        }
+
+        perform(get("/requests").header("X-Sharer-User-Id", booker.getId()));
+        perform(get("/requests/all").header("X-Sharer-User-Id", owner.getId()));
+        perform(get("/requests/{requestId}", requestId).header("X-Sharer-User-Id", owner.getId()));
+    }
+
+    @Test
+    void exceededBudgetFailsTheRequest() {
+        assertThrows(QueryBudgetExceededException.class, () -> mockMvc.perform(get("/test/over-budget")));
+    }
+
+    @Test
+    void repeatedStatementsFailTheRequest() {
+        assertThrows(QueryBudgetExceededException.class, () -> mockMvc.perform(get("/test/n-plus-one")));
+    }
+
+    private void perform(MockHttpServletRequestBuilder request) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        mockMvc.perform(request).andExpect(status().isOk());
+    }
+
+    @RestController
+    static class WastefulController {
+        private final UserRepository userRepository;
+
+        WastefulController(UserRepository userRepository) {
+            this.userRepository = userRepository;
+        }
+
+        @QueryBudget(1)
+        @GetMapping("/test/over-budget")
+        long overBudget() {
+            userRepository.count();
+            return userRepository.count();
+        }
+
+        @GetMapping("/test/n-plus-one")
+        List<Boolean> nPlusOne() {
+            List<Boolean> found = new ArrayList<>();
+            for (long id = -1; id > -5; id--) {
+                found.add(userRepository.existsById(id));
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.User;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class QueryMetricsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        itemRepository.save(new Item(null, "drill", "description", true, owner, null));
+        itemRepository.save(new Item(null, "saw", "description", true, owner, null));
+    }
+
+    @Test
+    void serviceCallsAreTimed() throws Exception {
+        long before = serviceTimer().count();
+
+        mockMvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(before + 1, serviceTimer().count());
+    }
+
+    @Test
+    void requestRecordsStatementsAndLoadedEntities() throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        DistributionSummary statements = httpSummary("shareit.http.statements");
+        DistributionSummary entities = httpSummary("shareit.http.entities");
+        long count = statements == null ? 0 : statements.count();
+        double entitiesTotal = entities == null ? 0 : entities.totalAmount();
+
+        mockMvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        assertEquals(count + 1, httpSummary("shareit.http.statements").count());
+        assertTrue(httpSummary("shareit.http.statements").max() > 0);
+        assertTrue(httpSummary("shareit.http.entities").totalAmount() - entitiesTotal >= 2);
+    }
+
+    @Test
+    void repositoryCallsRecordStatements() {
+        itemRepository.findByOwnerId(owner.getId());
+
+        DistributionSummary summary = meterRegistry.find("shareit.repository.statements")
+                .tag("repository", "ItemRepository")
+                .tag("method", "findByOwnerId")
+                .summary();
+        assertTrue(summary.count() > 0);
+        assertTrue(summary.max() >= 1);
+    }
+
+    @Test
+    void prometheusEndpointPublishesHistograms() throws Exception {
+        mockMvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("shareit_service_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")))
+                .andExpect(content().string(containsString("shareit_http_statements_count")));
+    }
+
+    private Timer serviceTimer() {
+        return meterRegistry.timer("shareit.service",
+                "class", ItemServiceImpl.class.getName(),
+                "method", "getAllItemsByOwner",
+                "exception", "none");
+    }
+
+    private DistributionSummary httpSummary(String name) {
+        return meterRegistry.find(name)
+                .tag("method", "GET")
+                .tag("uri", "/items")
+                .summary();
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveReadTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private User owner;
+    private User booker;
+    private String word;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        word = "reactive" + System.nanoTime();
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 3; i++) {
+            Item item = itemService.create(new Item(null, word + " " + i, "description", true, null, null), owner.getId());
+            bookingRepository.save(new Booking(null, base.minusDays(10), base.minusDays(9), item, booker,
+                    BookingStatus.APPROVED, null));
+            Long future = bookingService.create(BookingDto.builder()
+                    .itemId(item.getId())
+                    .start(base.plusDays(i))
+                    .end(base.plusDays(i + 1))
+                    .build(), booker.getId()).getId();
+            if (i != 1) {
+                bookingService.approve(future, owner.getId(), true);
+            }
+            itemService.addComment(item.getId(), CommentDto.builder().text("fine " + i).build(), booker.getId());
+        }
+    }
+
+    @Test
+    void ownerItemsMatchServletResponse() throws Exception {
+        List<ItemWithBookingsDto> streamed = stream(get("/reactive/items")
+                .header("X-Sharer-User-Id", owner.getId()), ItemWithBookingsDto.class);
+
+        assertEquals(itemService.getAllItemsByOwner(owner.getId(), 0, 100), streamed);
+        assertFalse(streamed.get(0).getComments().isEmpty());
+    }
+
+    @Test
+    void bookerBookingsMatchServletResponse() throws Exception {
+        for (String state : List.of("ALL", "PAST", "FUTURE", "WAITING", "CURRENT")) {
+            List<BookingResponseDto> streamed = stream(get("/reactive/bookings")
+                    .param("state", state)
+                    .header("X-Sharer-User-Id", booker.getId()), BookingResponseDto.class);
+
+            assertEquals(bookingService.getAllByBooker(booker.getId(), state, 0, 100), streamed, state);
+        }
+    }
+
+    @Test
+    void searchMatchesServletOrder() throws Exception {
+        List<ItemDto> streamed = stream(get("/reactive/items/search").param("text", word), ItemDto.class);
+
+        List<ItemDto> expected;
+        try (var items = itemService.streamSearch(word)) {
+            expected = items.collect(Collectors.toList());
+        }
+        assertEquals(3, streamed.size());
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void unknownUserIsNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/bookings").header("X-Sharer-User-Id", -1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    private <T> List<T> stream(MockHttpServletRequestBuilder builder, Class<T> type) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        List<T> values = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                values.add(objectMapper.readValue(line, type));
+            }
+        }
+        return values;
+    }
+}
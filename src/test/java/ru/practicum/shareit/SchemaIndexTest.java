@@ -0,0 +1,45 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * H2 сам индексирует внешние ключи, поэтому для одноколоночных индексов проверяется отсутствие
+ * полного сканирования, а для составных - что план выбирает именно их. В Postgres внешние ключи
+ * не индексируются, и все индексы приходят из миграции V2.
+ */
+@SpringBootTest
+class SchemaIndexTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "SELECT * FROM bookings WHERE booker_id = 1 ORDER BY start_date DESC, id DESC |",
+        "SELECT * FROM bookings WHERE booker_id = 1 AND (start_date < NOW() OR (start_date = NOW() AND id < 5)) ORDER BY start_date DESC, id DESC |",
+        "SELECT * FROM bookings WHERE booker_id = 1 AND end_date < NOW() ORDER BY start_date DESC |",
+        "SELECT * FROM bookings WHERE booker_id = 1 AND status = 'WAITING' ORDER BY start_date DESC |",
+        "SELECT * FROM bookings WHERE item_id = 1 AND status = 'APPROVED' AND start_date < NOW() ORDER BY start_date DESC | IDX_BOOKINGS_ITEM_STATUS_START",
+        "SELECT * FROM bookings WHERE item_id = 1 AND status = 'APPROVED' AND start_date > NOW() ORDER BY start_date | IDX_BOOKINGS_ITEM_STATUS_START",
+        "SELECT * FROM bookings WHERE item_id = 1 AND status = 'APPROVED' AND end_date < NOW() ORDER BY end_date DESC | IDX_BOOKINGS_ITEM_STATUS_END",
+        "SELECT b.* FROM bookings b JOIN items i ON b.item_id = i.id WHERE i.owner_id = 1 ORDER BY b.start_date DESC |",
+        "SELECT * FROM items WHERE owner_id = 1 |",
+        "SELECT * FROM items WHERE request_id = 1 |",
+        "SELECT * FROM comments WHERE item_id = 1 |",
+        "SELECT * FROM requests WHERE requestor_id = 1 AND (created < NOW() OR (created = NOW() AND id < 5)) ORDER BY created DESC, id DESC |",
+        "SELECT * FROM requests WHERE requestor_id <> 1 ORDER BY created DESC, id DESC LIMIT 11 | IDX_REQUESTS_CREATED_ID"
+    })
+    void queryUsesIndex(String query, String index) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+        assertFalse(plan.contains("tableScan"), () -> "Полное сканирование таблицы:\n" + plan);
+        if (index != null) {
+            assertTrue(plan.contains(index), () -> "Ожидался индекс " + index + " в плане:\n" + plan);
+        }
+    }
+}
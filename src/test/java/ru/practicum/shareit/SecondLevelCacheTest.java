@@ -0,0 +1,98 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.user("owner");
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromCache() {
+        Item item = itemRepository.save(new Item(null, "ladder", "description", true, owner, null));
+        entityManagerFactory.getCache().evictAll();
+        userRepository.findById(owner.getId());
+        itemRepository.findById(item.getId());
+        statistics.clear();
+
+        assertTrue(userRepository.findById(owner.getId()).isPresent());
+        assertEquals("ladder", itemService.getById(item.getId()).getName());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void updatesReplaceCachedState() {
+        Item item = itemRepository.save(new Item(null, "ladder", "description", true, owner, null));
+        userRepository.findById(owner.getId());
+        itemRepository.findById(item.getId());
+
+        userService.update(owner.getId(), new User(null, "renamed", null));
+        itemService.update(item.getId(), new Item(null, "stepladder", null, null, null, null), owner.getId());
+        statistics.clear();
+
+        assertEquals("renamed", userRepository.findById(owner.getId()).orElseThrow().getName());
+        assertEquals("stepladder", itemRepository.findById(item.getId()).orElseThrow().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deletingOwnerEvictsCascadedItems() {
+        Item item = itemRepository.save(new Item(null, "ladder", "description", true, owner, null));
+        itemRepository.findById(item.getId());
+
+        userService.delete(owner.getId());
+
+        assertFalse(userRepository.findById(owner.getId()).isPresent());
+        assertFalse(itemRepository.findById(item.getId()).isPresent());
+    }
+
+    @Test
+    void cacheMetricsArePublished() {
+        userRepository.findById(owner.getId());
+
+        assertFalse(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", "users")
+                .meters()
+                .isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Общие тестовые данные. Все @SpringBootTest работают с одной базой H2, которая между тестами
+ * не очищается, поэтому почта каждого пользователя уникальна, а тесты проверяют только свои записи.
+ */
+@Component
+public class TestData {
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime());
+
+    private final UserRepository userRepository;
+
+    public TestData(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public static String email(String name) {
+        return name + "-" + SEQUENCE.incrementAndGet() + "@mail.ru";
+    }
+
+    /**
+     * Несохранённый пользователь с уникальной почтой.
+     */
+    public static User newUser(String name) {
+        return new User(null, name, email(name));
+    }
+
+    public User user(String name) {
+        return userRepository.save(newUser(name));
+    }
+}
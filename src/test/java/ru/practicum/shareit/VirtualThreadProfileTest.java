@@ -0,0 +1,70 @@
+package ru.practicum.shareit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.user.User;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.hikari.connection-timeout=250")
+@ActiveProfiles("virtual")
+@Import(VirtualThreadProfileTest.ThreadController.class)
+class VirtualThreadProfileTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void requestsRunOnVirtualThreads() {
+        assertEquals(Boolean.TRUE, restTemplate.getForObject("/test/thread", Boolean.class));
+    }
+
+    @Test
+    void poolIsFixedAndExhaustionIsReportedAs503() throws Exception {
+        User user = testData.user("user");
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        assertEquals(pool.getMaximumPoolSize(), pool.getMinimumIdle());
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+                held.add(pool.getConnection());
+            }
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                    restTemplate.getForEntity("/users/{userId}", String.class, user.getId()).getStatusCode());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        assertTrue(restTemplate.getForEntity("/users/{userId}", String.class, user.getId())
+                .getStatusCode()
+                .is2xxSuccessful());
+    }
+
+    @RestController
+    static class ThreadController {
+        @GetMapping("/test/thread")
+        boolean isVirtual() {
+            return Thread.currentThread().isVirtual();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class BookingBatchTest {
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private Item unavailable;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        item = itemRepository.save(new Item(null, "kayak", "description", true, owner, null));
+        unavailable = itemRepository.save(new Item(null, "boat", "description", false, owner, null));
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    @Test
+    void createAllReportsEveryEntry() {
+        List<BookingBatchEntryDto> results = bookingService.createAll(List.of(
+                slot(item.getId(), 0, 1),
+                slot(item.getId(), 1, 2),
+                slot(item.getId(), 0, 2),
+                slot(unavailable.getId(), 0, 1),
+                slot(-1L, 0, 1),
+                slot(item.getId(), 3, 3)), booker.getId());
+
+        assertEquals(List.of(200, 200, 409, 400, 404, 400),
+                results.stream().map(BookingBatchEntryDto::getStatus).collect(Collectors.toList()));
+        assertEquals(BookingStatus.WAITING, results.get(0).getBooking().getStatus());
+        assertNull(results.get(2).getBooking());
+        assertEquals(2, bookingRepository.findAll(
+                (root, query, cb) -> cb.equal(root.get("item").get("id"), item.getId())).size());
+    }
+
+    @Test
+    void approveAllReportsEveryEntry() {
+        List<Long> ids = bookingService.createAll(List.of(
+                        slot(item.getId(), 0, 1),
+                        slot(item.getId(), 1, 2),
+                        slot(item.getId(), 2, 3)), booker.getId()).stream()
+                .map(BookingBatchEntryDto::getId)
+                .collect(Collectors.toList());
+        bookingService.approve(ids.get(2), owner.getId(), false);
+
+        List<BookingBatchEntryDto> results = bookingService.approveAll(
+                List.of(ids.get(0), ids.get(1), ids.get(0), ids.get(2), -1L), owner.getId(), true);
+
+        assertEquals(List.of(200, 200, 409, 400, 404),
+                results.stream().map(BookingBatchEntryDto::getStatus).collect(Collectors.toList()));
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(ids.get(1)).orElseThrow().getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(ids.get(2)).orElseThrow().getStatus());
+    }
+
+    @Test
+    void approveAllRejectsForeignBookings() {
+        Long id = bookingService.createAll(List.of(slot(item.getId(), 0, 1)), booker.getId()).get(0).getId();
+
+        List<BookingBatchEntryDto> results = bookingService.approveAll(List.of(id), booker.getId(), true);
+
+        assertEquals(403, results.get(0).getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(id).orElseThrow().getStatus());
+    }
+
+    @Test
+    void emptyBatchIsRejected() {
+        assertThrows(ValidationException.class, () -> bookingService.createAll(List.of(), booker.getId()));
+        assertThrows(ValidationException.class, () -> bookingService.approveAll(List.of(), owner.getId(), true));
+    }
+
+    private BookingDto slot(Long itemId, int fromDay, int toDay) {
+        return BookingDto.builder()
+                .itemId(itemId)
+                .start(base.plusDays(fromDay))
+                .end(base.plusDays(toDay))
+                .build();
+    }
+}
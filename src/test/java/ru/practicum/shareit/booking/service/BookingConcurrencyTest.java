@@ -0,0 +1,271 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.occupancy.BookedInterval;
+import ru.practicum.shareit.booking.occupancy.ItemOccupancyIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Бронирования создаются и подтверждаются из многих потоков без общей транзакции, как при реальной нагрузке.
+ */
+@SpringBootTest
+class BookingConcurrencyTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemOccupancyIndex occupancyIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private Item item;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        item = itemRepository.save(new Item(null, "drill", "description", true, owner, null));
+        base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    @Test
+    void sameSlotIsBookedExactlyOnce() throws Exception {
+        List<Callable<BookingResponseDto>> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            User booker = newBooker();
+            attempts.add(() -> bookingService.create(slot(base, base.plusDays(3)), booker.getId()));
+        }
+
+        Outcome outcome = runConcurrently(attempts);
+
+        assertEquals(1, outcome.succeeded.get());
+        assertEquals(attempts.size() - 1, outcome.conflicts.get());
+        assertEquals(1, bookingsOfItem().size());
+    }
+
+    @Test
+    void randomSlotsNeverOverlap() throws Exception {
+        Random random = new Random(7);
+        List<Callable<BookingResponseDto>> attempts = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            User booker = newBooker();
+            LocalDateTime start = base.plusHours(random.nextInt(60 * 24));
+            LocalDateTime end = start.plusHours(1 + random.nextInt(48));
+            attempts.add(() -> bookingService.create(slot(start, end), booker.getId()));
+        }
+
+        Outcome outcome = runConcurrently(attempts);
+
+        List<Booking> stored = bookingsOfItem();
+        assertEquals(outcome.succeeded.get(), stored.size());
+        assertTrue(outcome.conflicts.get() > 0);
+        stored.sort(Comparator.comparing(Booking::getStart));
+        for (int i = 1; i < stored.size(); i++) {
+            assertFalse(stored.get(i).getStart().isBefore(stored.get(i - 1).getEnd()),
+                    "Бронирования " + stored.get(i - 1).getId() + " и " + stored.get(i).getId() + " пересекаются");
+        }
+    }
+
+    @Test
+    void rejectedBookingFreesTheSlot() {
+        User first = newBooker();
+        User second = newBooker();
+        BookingResponseDto booking = bookingService.create(slot(base, base.plusDays(1)), first.getId());
+        assertThrows(ConflictException.class,
+                () -> bookingService.create(slot(base.plusHours(12), base.plusDays(2)), second.getId()));
+
+        bookingService.approve(booking.getId(), owner.getId(), false);
+
+        bookingService.create(slot(base.plusHours(12), base.plusDays(2)), second.getId());
+    }
+
+    @Test
+    void decidingTwiceIsAValidationError() {
+        BookingResponseDto booking = bookingService.create(slot(base, base.plusDays(1)), newBooker().getId());
+        bookingService.approve(booking.getId(), owner.getId(), true);
+
+        assertThrows(ValidationException.class, () -> bookingService.approve(booking.getId(), owner.getId(), true));
+        assertThrows(ValidationException.class, () -> bookingService.approve(booking.getId(), owner.getId(), false));
+    }
+
+    @Test
+    void concurrentDecisionsHaveExactlyOneWinner() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            BookingResponseDto booking = bookingService.create(
+                    slot(base.plusDays(round * 2L), base.plusDays(round * 2L + 1)), newBooker().getId());
+            List<Callable<BookingResponseDto>> decisions = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                boolean approve = i % 2 == 0;
+                decisions.add(() -> bookingService.approve(booking.getId(), owner.getId(), approve));
+            }
+
+            Outcome outcome = runConcurrently(decisions);
+
+            assertEquals(1, outcome.succeeded.get());
+            assertEquals(THREADS - 1, outcome.conflicts.get() + outcome.alreadyDecided.get());
+            assertEquals(outcome.winner.getStatus(),
+                    bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void adjacentSlotsDoNotConflict() {
+        bookingService.create(slot(base, base.plusDays(1)), newBooker().getId());
+        bookingService.create(slot(base.plusDays(1), base.plusDays(2)), newBooker().getId());
+        bookingService.create(slot(base.minusDays(1).plusHours(1), base), newBooker().getId());
+        assertEquals(3, bookingsOfItem().size());
+    }
+
+    @Test
+    void bookingStoredPastTheIndexStillConflicts() {
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(newBooker())
+                .start(base)
+                .end(base.plusDays(1))
+                .status(BookingStatus.APPROVED)
+                .build());
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.create(slot(base.plusHours(6), base.plusDays(2)), newBooker().getId()));
+        List<BookingBatchEntryDto> results = bookingService.createAll(List.of(
+                slot(base.minusHours(6), base.plusHours(1)),
+                slot(base.plusDays(1), base.plusDays(2))), newBooker().getId());
+
+        assertEquals(List.of(409, 200),
+                results.stream().map(BookingBatchEntryDto::getStatus).collect(Collectors.toList()));
+        assertEquals(2, bookingsOfItem().size());
+    }
+
+    @Test
+    void slotFreedBehindTheIndexCanBeBooked() {
+        BookingResponseDto rejected = bookingService.create(slot(base, base.plusDays(1)), newBooker().getId());
+        BookingResponseDto deleted = bookingService.create(slot(base.plusDays(2), base.plusDays(3)),
+                newBooker().getId());
+
+        // Так выглядят отклонение и удаление, сделанные другим экземпляром приложения.
+        jdbcTemplate.update("UPDATE bookings SET status = 'REJECTED' WHERE id = ?", rejected.getId());
+        jdbcTemplate.update("DELETE FROM bookings WHERE id = ?", deleted.getId());
+
+        bookingService.create(slot(base.plusHours(12), base.plusDays(1)), newBooker().getId());
+        List<BookingBatchEntryDto> results = bookingService.createAll(List.of(
+                slot(base.plusDays(2), base.plusDays(3)),
+                slot(base.plusDays(2), base.plusDays(3))), newBooker().getId());
+        assertEquals(List.of(200, 409),
+                results.stream().map(BookingBatchEntryDto::getStatus).collect(Collectors.toList()));
+    }
+
+    @Test
+    void endedIntervalsArePruned() {
+        bookingService.create(slot(base, base.plusDays(1)), newBooker().getId());
+        bookingService.create(slot(base.plusDays(2), base.plusDays(3)), newBooker().getId());
+
+        occupancyIndex.prune(base.plusDays(1));
+
+        assertEquals(List.of(base.plusDays(2)), occupancyIndex.busy(item.getId(), base, base.plusDays(3)).stream()
+                .map(BookedInterval::getStart)
+                .collect(Collectors.toList()));
+        occupancyIndex.prune(base.plusDays(3));
+        assertTrue(occupancyIndex.busy(item.getId(), base, base.plusDays(3)).isEmpty());
+    }
+
+    private Outcome runConcurrently(List<Callable<BookingResponseDto>> attempts) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Outcome outcome = new Outcome();
+        try {
+            List<Future<BookingResponseDto>> futures = new ArrayList<>();
+            for (Callable<BookingResponseDto> attempt : attempts) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return attempt.call();
+                }));
+            }
+            start.countDown();
+            for (Future<BookingResponseDto> future : futures) {
+                try {
+                    outcome.winner = future.get();
+                    outcome.succeeded.incrementAndGet();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ValidationException) {
+                        outcome.alreadyDecided.incrementAndGet();
+                        continue;
+                    }
+                    assertInstanceOf(ConflictException.class, e.getCause());
+                    outcome.conflicts.incrementAndGet();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private List<Booking> bookingsOfItem() {
+        return new ArrayList<>(bookingRepository.findAll(
+                (root, query, cb) -> cb.equal(root.get("item").get("id"), item.getId())));
+    }
+
+    private User newBooker() {
+        return testData.user("booker");
+    }
+
+    private BookingDto slot(LocalDateTime start, LocalDateTime end) {
+        return BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(end)
+                .build();
+    }
+
+    private static final class Outcome {
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger conflicts = new AtomicInteger();
+        private final AtomicInteger alreadyDecided = new AtomicInteger();
+        private BookingResponseDto winner;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSlice;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class BookingQueryCountTest {
+    private static final String[] STATES = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"};
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            Item item = itemRepository.save(new Item(null, "item" + i, "description", true, owner, null));
+            for (String state : STATES) {
+                bookingRepository.save(Booking.builder()
+                        .item(item)
+                        .booker(booker)
+                        .start(startFor(state, now))
+                        .end(startFor(state, now).plusDays(2))
+                        .status("REJECTED".equals(state) ? BookingStatus.REJECTED
+                                : "WAITING".equals(state) ? BookingStatus.WAITING : BookingStatus.APPROVED)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    void bookerPageIsLoadedWithOneQuery(String state) {
+        List<BookingResponseDto> page = countStatements(1,
+                () -> bookingService.getAllByBooker(booker.getId(), state, 0, 10));
+        assertFalse(page.isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    void ownerPageIsLoadedWithOneQuery(String state) {
+        List<BookingResponseDto> page = countStatements(1,
+                () -> bookingService.getAllByOwner(owner.getId(), state, 0, 10));
+        assertFalse(page.isEmpty());
+    }
+
+    @Test
+    void emptyPageFallsBackToExistenceChecks() {
+        assertThrows(NotFoundException.class, () -> bookingService.getAllByBooker(-1L, "ALL", 0, 10));
+        assertThrows(NotFoundException.class, () -> bookingService.getAllByOwner(booker.getId(), "ALL", 0, 10));
+        List<BookingResponseDto> page = countStatements(3,
+                () -> bookingService.getAllByOwner(owner.getId(), "CURRENT", 10, 10));
+        assertTrue(page.isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void keysetWalkVisitsEveryBookingOnceWithOneQueryPerPage(boolean asOwner) {
+        Set<Long> seen = new HashSet<>();
+        BookingCursor cursor = null;
+        do {
+            BookingCursor after = cursor;
+            BookingSlice slice = countStatements(1, () -> asOwner
+                    ? bookingService.getAllByOwner(owner.getId(), "ALL", after, 4)
+                    : bookingService.getAllByBooker(booker.getId(), "ALL", after, 4));
+            slice.getContent().forEach(booking -> assertTrue(seen.add(booking.getId())));
+            cursor = slice.getNext();
+        } while (cursor != null);
+        assertEquals(3 * STATES.length, seen.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void offsetPagesVisitEveryBookingOnce(boolean asOwner) {
+        Set<Long> seen = new HashSet<>();
+        for (int from = 0; from < 3 * STATES.length; from += 4) {
+            int offset = from;
+            List<BookingResponseDto> page = countStatements(1, () -> asOwner
+                    ? bookingService.getAllByOwner(owner.getId(), "all", offset, 4)
+                    : bookingService.getAllByBooker(booker.getId(), "all", offset, 4));
+            page.forEach(booking -> assertTrue(seen.add(booking.getId())));
+        }
+        assertEquals(3 * STATES.length, seen.size());
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> action) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = action.get();
+        assertEquals(expected, statistics.getPrepareStatementCount(), "Число SQL-запросов");
+        return result;
+    }
+
+    private static LocalDateTime startFor(String state, LocalDateTime now) {
+        return switch (state) {
+            case "CURRENT" -> now.minusDays(1);
+            case "PAST" -> now.minusDays(10);
+            default -> now.plusDays(10);
+        };
+    }
+}
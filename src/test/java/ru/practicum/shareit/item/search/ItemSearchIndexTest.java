@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.search;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.User;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Поиск через индекс должен находить те же вещи, что и прежний запрос UPPER(...) LIKE к таблице items,
+ * в том числе когда в тексте запроса есть '%', '_' или '\'.
+ * Сравниваются только вещи, созданные тестом: остальные тесты пишут в ту же базу в обход индекса.
+ */
+@SpringBootTest
+class ItemSearchIndexTest {
+    private static final String LEGACY_SEARCH = "SELECT i.id FROM Item i " +
+            "WHERE i.available = true " +
+            "AND (UPPER(i.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
+            "OR UPPER(i.description) LIKE UPPER(CONCAT('%', :text, '%')))";
+    private static final List<String> QUERIES = List.of("дрель", "ДРЕЛЬ", "ДрЕлЬ", "дрел", "др", "ь", "drill",
+            "DRI", "dr", "l", "ladder", "стремянка", "РЕМ", "molotok", "zubilo", "aluminium", "не нужна", "a",
+            "%", "_", "%%", "__", "др%ль", "д_ель", "_рел", "50%", "50\\%", "%пил", "10_12", "10\\_12", "0_1",
+            "ключ%накид", "m%k", "h_mmer%нуж");
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User owner;
+    private Set<Long> seeded;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        seeded = new HashSet<>();
+        create("Дрель Bosch", "ударная ДРЕЛЬ", true);
+        create("drill", "Cordless DRILL", true);
+        create("Пила", "для дрели и пилы", true);
+        create("Дрель старая", "", false);
+        create("Ladder", "aluminium", true);
+        create("Hammer", "дрель не нужна", true);
+        create("Molotok", "Zubilo", true);
+        create("Скидка 50% на пилу", "распродажа", true);
+        create("Ключ 10_12", "рожковый", true);
+        create("Ключ 10\\_12", "комбинированный", true);
+        create("Ключ 10-12", "накидной", true);
+    }
+
+    @Test
+    void indexMatchesLegacyQueryForMixedCaseCyrillicAndUnavailableItems() {
+        assertSameResults();
+        assertEquals(Set.of(idOf("Дрель Bosch"), idOf("Hammer")), search("ДрЕлЬ"));
+        assertEquals(Set.of(idOf("Дрель Bosch"), idOf("Пила"), idOf("Hammer")), search("дрел"));
+    }
+
+    @Test
+    void percentAndUnderscoreInQueryAreWildcards() {
+        assertSameResults();
+        assertEquals(Set.of(idOf("Ключ 10_12"), idOf("Ключ 10-12")), search("10_12"));
+        assertEquals(Set.of(idOf("Ключ 10\\_12")), search("10\\_12"));
+        assertEquals(Set.of(idOf("Дрель Bosch"), idOf("Hammer")), search("д_ель"));
+        assertEquals(Set.of(idOf("Скидка 50% на пилу")), search("50%пил"));
+        assertEquals(seeded.size() - 1, search("%").size());
+    }
+
+    @Test
+    void indexFollowsUpdatesAndDeletes() {
+        Long ladder = idOf("Ladder");
+        Long molotok = idOf("Molotok");
+        Long drill = idOf("drill");
+        Long hammer = idOf("Hammer");
+
+        itemService.update(ladder, new Item(null, "Стремянка", "ALUMINIUM", null, null, null), owner.getId());
+        itemService.update(molotok, new Item(null, null, null, false, null, null), owner.getId());
+        itemService.update(drill, new Item(null, null, "Шуруповёрт", null, null, null), owner.getId());
+        itemRepository.deleteById(hammer);
+
+        assertSameResults();
+        assertTrue(search("стремянка").contains(ladder));
+        assertFalse(search("ladder").contains(ladder));
+        assertFalse(search("molotok").contains(molotok));
+        assertFalse(search("не нужна").contains(hammer));
+    }
+
+    private void assertSameResults() {
+        for (String query : QUERIES) {
+            assertEquals(legacy(query), search(query), query);
+        }
+    }
+
+    private Set<Long> search(String text) {
+        return itemService.search(text, 0, Integer.MAX_VALUE).stream()
+                .map(Item::getId)
+                .filter(seeded::contains)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Long> legacy(String text) {
+        return entityManager.createQuery(LEGACY_SEARCH, Long.class)
+                .setParameter("text", text)
+                .getResultList().stream()
+                .filter(seeded::contains)
+                .collect(Collectors.toSet());
+    }
+
+    private void create(String name, String description, boolean available) {
+        seeded.add(itemService.create(new Item(null, name, description, available, null, null), owner.getId())
+                .getId());
+    }
+
+    private Long idOf(String name) {
+        return itemRepository.findAllById(seeded).stream()
+                .filter(item -> item.getName().equals(name))
+                .findFirst()
+                .orElseThrow()
+                .getId();
+    }
+}
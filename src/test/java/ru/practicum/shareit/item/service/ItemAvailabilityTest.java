@@ -0,0 +1,155 @@
+package ru.practicum.shareit.item.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.occupancy.ItemOccupancyIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class ItemAvailabilityTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemOccupancyIndex occupancyIndex;
+
+    private User owner;
+    private Item item;
+    private LocalDateTime day;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        item = itemRepository.save(new Item(null, "tent", "description", true, owner, null));
+        day = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    @Test
+    void calendarFollowsCreateApproveAndReject() {
+        BookingResponseDto approved = book(day.plusHours(8), day.plusHours(10));
+        BookingResponseDto rejected = book(day.plusHours(12), day.plusHours(14));
+        book(day.plusHours(20), day.plusHours(30));
+
+        bookingService.approve(approved.getId(), owner.getId(), true);
+        bookingService.approve(rejected.getId(), owner.getId(), false);
+
+        ItemAvailabilityDto calendar = itemService.getAvailability(item.getId(), day, day.plusDays(1));
+
+        assertEquals(List.of(
+                new TimeSlotDto(day.plusHours(8), day.plusHours(10), BookingStatus.APPROVED),
+                new TimeSlotDto(day.plusHours(20), day.plusHours(30), BookingStatus.WAITING)), calendar.getBusy());
+        assertEquals(List.of(
+                new TimeSlotDto(day, day.plusHours(8), null),
+                new TimeSlotDto(day.plusHours(10), day.plusHours(20), null)), calendar.getFree());
+    }
+
+    @Test
+    void calendarCostsOneExistenceCheck() {
+        book(day.plusHours(1), day.plusHours(2));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ItemAvailabilityDto calendar = itemService.getAvailability(item.getId(), day, day.plusDays(7));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, calendar.getBusy().size());
+        assertEquals(2, calendar.getFree().size());
+    }
+
+    @Test
+    void emptyWindowIsFree() {
+        ItemAvailabilityDto calendar = itemService.getAvailability(item.getId(), day, day.plusDays(1));
+        assertEquals(List.of(), calendar.getBusy());
+        assertEquals(List.of(new TimeSlotDto(day, day.plusDays(1), null)), calendar.getFree());
+    }
+
+    @Test
+    void pastBookingsAreNotReportedAsFree() {
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.DAYS);
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(testData.user("booker"))
+                .start(yesterday.plusHours(8))
+                .end(yesterday.plusHours(10))
+                .status(BookingStatus.APPROVED)
+                .build());
+        // Завершившихся бронирований в индексе нет: прошлое известно только базе.
+        occupancyIndex.prune(LocalDateTime.now());
+
+        ItemAvailabilityDto calendar = itemService.getAvailability(item.getId(), yesterday, yesterday.plusDays(1));
+
+        assertEquals(List.of(new TimeSlotDto(yesterday.plusHours(8), yesterday.plusHours(10), BookingStatus.APPROVED)),
+                calendar.getBusy());
+        assertEquals(List.of(
+                new TimeSlotDto(yesterday, yesterday.plusHours(8), null),
+                new TimeSlotDto(yesterday.plusHours(10), yesterday.plusDays(1), null)), calendar.getFree());
+    }
+
+    @Test
+    void windowAcrossNowCombinesDatabaseAndIndex() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(testData.user("booker"))
+                .start(now.minusHours(2))
+                .end(now.plusHours(2))
+                .status(BookingStatus.APPROVED)
+                .build());
+        book(day.plusHours(8), day.plusHours(10));
+
+        ItemAvailabilityDto calendar = itemService.getAvailability(item.getId(), now.minusDays(1), day.plusDays(1));
+
+        assertEquals(List.of(
+                new TimeSlotDto(now.minusHours(2), now.plusHours(2), BookingStatus.APPROVED),
+                new TimeSlotDto(day.plusHours(8), day.plusHours(10), BookingStatus.WAITING)), calendar.getBusy());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() {
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(item.getId(), day, day));
+        assertThrows(NotFoundException.class, () -> itemService.getAvailability(-1L, day, day.plusDays(1)));
+    }
+
+    private BookingResponseDto book(LocalDateTime start, LocalDateTime end) {
+        User booker = testData.user("booker");
+        return bookingService.create(BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(end)
+                .build(), booker.getId());
+    }
+}
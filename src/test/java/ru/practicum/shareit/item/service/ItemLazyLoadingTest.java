@@ -0,0 +1,103 @@
+package ru.practicum.shareit.item.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Владелец и запрос вещи не загружаются, пока нужны только их id, в том числе после закрытия транзакции,
+ * как в контроллерах при выключенном open-in-view.
+ */
+@SpringBootTest
+class ItemLazyLoadingTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+    private User owner;
+    private ItemRequest request;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.user("owner");
+        request = transactionTemplate.execute(status -> {
+            ItemRequest created = ItemRequest.builder()
+                    .description("need a lazy ladder")
+                    .requestor(owner)
+                    .created(LocalDateTime.now())
+                    .build();
+            entityManager.persist(created);
+            return created;
+        });
+        item = itemService.create(new Item(null, "lazy ladder", "description", true, null, request), owner.getId());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void foreignKeysAreReadWithoutInitialisingProxies() {
+        statistics.clear();
+
+        List<Item> found = itemService.search("lazy ladder", 0, 10);
+        ItemDto dto = ItemMapper.toDto(found.get(0));
+
+        assertEquals(request.getId(), dto.getRequestId());
+        assertEquals(owner.getId(), found.get(0).getOwner().getId());
+        assertFalse(Hibernate.isInitialized(found.get(0).getOwner()));
+        assertFalse(Hibernate.isInitialized(found.get(0).getRequest()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+
+    @Test
+    void bookingResponseDoesNotLoadItemOwner() {
+        User booker = testData.user("booker");
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long bookingId = bookingRepository.save(new Booking(null, start, start.plusDays(1), item, booker,
+                BookingStatus.WAITING, null)).getId();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        BookingResponseDto dto = BookingMapper.toBookingResponseDto(booking);
+
+        assertEquals(request.getId(), dto.getItem().getRequestId());
+        assertFalse(Hibernate.isInitialized(booking.getItem().getOwner()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
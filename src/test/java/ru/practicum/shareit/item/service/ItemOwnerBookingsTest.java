@@ -0,0 +1,166 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ItemBookingView;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Последнее и следующее бронирования вещей владельца выбираются одним запросом с ROW_NUMBER()
+ * (BookingRepository.findLastAndNextBookings). У каждой вещи несколько прошедших и будущих
+ * подтверждённых бронирований, текущее, а также ожидающие и отклонённые, которые ближе к «сейчас»,
+ * чем подходящие подтверждённые, и не должны попадать в ответ. При равных датах выбирается то же
+ * бронирование, что и в запросах для одной вещи (findLastBookings/findNextBookings).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemOwnerBookingsTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User owner;
+    private User booker;
+    private List<Long> itemIds;
+    private Map<Long, Long> lastBookings;
+    private Map<Long, Long> nextBookings;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        itemIds = new ArrayList<>();
+        lastBookings = new HashMap<>();
+        nextBookings = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            Item item = itemService.create(new Item(null, "ranked " + i, "description", true, null, null),
+                    owner.getId());
+            itemIds.add(item.getId());
+            book(item, now.minusDays(20), now.minusDays(19), BookingStatus.APPROVED);
+            Long last = book(item, now.minusDays(4 + i), now.minusDays(3).plusHours(i), BookingStatus.APPROVED);
+            book(item, now.minusDays(12), now.minusDays(10), BookingStatus.APPROVED);
+            book(item, now.minusHours(1), now.plusHours(1), BookingStatus.APPROVED);
+            book(item, now.minusDays(2), now.minusDays(1), BookingStatus.WAITING);
+            book(item, now.minusHours(5), now.minusHours(2), BookingStatus.REJECTED);
+            book(item, now.plusDays(5), now.plusDays(6), BookingStatus.APPROVED);
+            Long next = book(item, now.plusDays(2).plusHours(i), now.plusDays(3), BookingStatus.APPROVED);
+            book(item, now.plusDays(9), now.plusDays(10), BookingStatus.APPROVED);
+            book(item, now.plusHours(6), now.plusHours(8), BookingStatus.WAITING);
+            book(item, now.plusHours(12), now.plusDays(1), BookingStatus.REJECTED);
+            lastBookings.put(item.getId(), last);
+            nextBookings.put(item.getId(), next);
+        }
+        Item free = itemService.create(new Item(null, "never booked", "description", true, null, null),
+                owner.getId());
+        itemIds.add(free.getId());
+        book(free, now.minusDays(2), now.minusDays(1), BookingStatus.REJECTED);
+        book(free, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+    }
+
+    @Test
+    void queryReturnsExactlyOneLastAndOneNextPerItem() {
+        List<ItemBookingView> views = bookingRepository.findLastAndNextBookings(itemIds, LocalDateTime.now());
+
+        Map<Long, List<ItemBookingView>> byItem = views.stream()
+                .collect(Collectors.groupingBy(ItemBookingView::getItemId));
+        assertEquals(3, byItem.size());
+        for (Long itemId : lastBookings.keySet()) {
+            List<ItemBookingView> itemViews = byItem.get(itemId);
+            assertEquals(2, itemViews.size());
+            assertEquals(List.of(lastBookings.get(itemId)), itemViews.stream()
+                    .filter(ItemBookingView::isLast).map(ItemBookingView::getId).collect(Collectors.toList()));
+            assertEquals(List.of(nextBookings.get(itemId)), itemViews.stream()
+                    .filter(view -> !view.isLast()).map(ItemBookingView::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void tiesAreBrokenByIdAsForASingleItem() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = now.minusDays(1);
+        LocalDateTime start = now.plusDays(1);
+        Item item = itemService.create(new Item(null, "tied", "description", true, null, null), owner.getId());
+        book(item, now.minusDays(3), end, BookingStatus.APPROVED);
+        Long last = book(item, now.minusDays(2), end, BookingStatus.APPROVED);
+        Long next = book(item, start, now.plusDays(2), BookingStatus.APPROVED);
+        book(item, start, now.plusDays(3), BookingStatus.APPROVED);
+
+        Map<Boolean, Long> ranked = bookingRepository.findLastAndNextBookings(List.of(item.getId()), now).stream()
+                .collect(Collectors.toMap(ItemBookingView::isLast, ItemBookingView::getId));
+        assertEquals(last, ranked.get(true));
+        assertEquals(next, ranked.get(false));
+        assertEquals(last, bookingRepository.findLastBookings(item.getId(), BookingStatus.APPROVED, now,
+                Limit.of(1)).get(0).getId());
+        assertEquals(next, bookingRepository.findNextBookings(item.getId(), BookingStatus.APPROVED, now,
+                Limit.of(1)).get(0).getId());
+    }
+
+    @Test
+    void pagedOwnerItemsCarryTheirLastAndNextBookings() throws Exception {
+        List<ItemWithBookingsDto> items = new ArrayList<>(page(0, 2));
+        assertEquals(2, items.size());
+        items.addAll(page(2, 2));
+
+        assertEquals(itemIds, items.stream().map(ItemWithBookingsDto::getId).collect(Collectors.toList()));
+        for (ItemWithBookingsDto item : items.subList(0, 3)) {
+            assertEquals(lastBookings.get(item.getId()), item.getLastBooking().getId());
+            assertEquals(nextBookings.get(item.getId()), item.getNextBooking().getId());
+        }
+        assertNull(items.get(3).getLastBooking());
+        assertNull(items.get(3).getNextBooking());
+    }
+
+    private List<ItemWithBookingsDto> page(int from, int size) throws Exception {
+        String body = mockMvc.perform(get("/items")
+                        .param("from", String.valueOf(from))
+                        .param("size", String.valueOf(size))
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, new TypeReference<>() {
+        });
+    }
+
+    private Long book(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return bookingRepository.save(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build()).getId();
+    }
+}
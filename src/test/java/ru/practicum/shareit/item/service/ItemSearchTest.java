@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * В каждом тесте своя уникальная подстрока, поэтому вещи других тестов в общей базе выдачу не меняют.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemSearchTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private String marker;
+    private List<Long> expected;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.user("owner");
+        marker = "qx" + System.nanoTime();
+        Long nameHit = create("drill " + marker, "cordless", true);
+        Long descriptionHit = create("saw", "good for " + marker.toUpperCase() + " work", true);
+        Long secondNameHit = create(marker + " hammer", "heavy", true);
+        create("hidden " + marker, "unavailable", false);
+        Long secondDescriptionHit = create("tape", marker, true);
+        expected = List.of(nameHit, secondNameHit, descriptionHit, secondDescriptionHit);
+    }
+
+    @Test
+    void nameHitsAreRankedBeforeDescriptionHits() {
+        assertEquals(expected, ids(itemService.search(marker, 0, 10)));
+    }
+
+    @Test
+    void pagesCrossTheNameDescriptionBoundary() {
+        assertEquals(expected.subList(0, 2), ids(itemService.search(marker, 0, 2)));
+        assertEquals(expected.subList(1, 3), ids(itemService.search(marker, 1, 2)));
+        assertEquals(expected.subList(3, 4), ids(itemService.search(marker, 3, 2)));
+    }
+
+    @Test
+    void offsetPastTheEndReturnsNothing() {
+        assertEquals(List.of(), itemService.search(marker, 4, 10));
+        assertEquals(List.of(), itemService.search(marker, 100, 10));
+    }
+
+    @Test
+    void shortQueryIsMatchedByFullScan() {
+        Long descriptionHit = create("lamp", "старая ѣѳ лампа", true);
+        Long nameHit = create("Ѣѳ lamp", "new", true);
+
+        assertEquals(List.of(nameHit, descriptionHit), ids(itemService.search("ѢѲ", 0, 10)));
+        assertEquals(List.of(descriptionHit), ids(itemService.search("ѣѳ", 1, 10)));
+    }
+
+    @Test
+    void streamReturnsAllMatchesAsDtosWithoutLoadingEntities() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Long> streamed;
+        try (Stream<ItemDto> items = itemService.streamSearch(marker)) {
+            streamed = items.map(ItemDto::getId).collect(Collectors.toList());
+        }
+
+        assertEquals(expected, streamed);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void streamEndpointWritesNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/items/search/stream").param("text", marker))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        List<Long> streamed = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            streamed.add(objectMapper.readValue(line, ItemDto.class).getId());
+        }
+        assertEquals(expected, streamed);
+    }
+
+    private Long create(String name, String description, boolean available) {
+        return itemService.create(new Item(null, name, description, available, null, null), owner.getId()).getId();
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
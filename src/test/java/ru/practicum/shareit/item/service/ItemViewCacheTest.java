@@ -0,0 +1,190 @@
+package ru.practicum.shareit.item.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemViewCacheTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ManualTicker ticker;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.user("owner");
+        booker = testData.user("booker");
+        item = itemRepository.save(new Item(null, "tent", "description", true, owner, null));
+    }
+
+    @Test
+    void repeatedViewsDoNotQueryTheDatabase() {
+        ItemView first = itemService.getItemView(item.getId(), owner.getId());
+        statistics.clear();
+
+        ItemView second = itemService.getItemView(item.getId(), owner.getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(first.getEtag(), second.getEtag());
+        assertNotEquals(first.getEtag(), itemService.getItemView(item.getId(), booker.getId()).getEtag());
+    }
+
+    @Test
+    void etagDistinguishesContentWithEqualHashCodes() {
+        ItemWithBookingsDto first = ItemWithBookingsDto.builder().id(1L).name("Aa").available(true).build();
+        ItemWithBookingsDto second = ItemWithBookingsDto.builder().id(1L).name("BB").available(true).build();
+
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(ItemView.of(first, false).getEtag(), ItemView.of(second, false).getEtag());
+        ItemWithBookingsDto same = ItemWithBookingsDto.builder().id(1L).name("Aa").available(true).build();
+        assertEquals(ItemView.of(first, false).getEtag(), ItemView.of(same, false).getEtag());
+    }
+
+    @Test
+    void ownerViewExpiresWhenBookingStarts() {
+        LocalDateTime start = LocalDateTime.now().plusMinutes(2);
+        Long bookingId = bookingService.create(BookingDto.builder()
+                .itemId(item.getId())
+                .start(start)
+                .end(start.plusHours(1))
+                .build(), booker.getId()).getId();
+        assertNull(itemService.getItemWithBookings(item.getId(), owner.getId()).getNextBooking());
+
+        bookingService.approve(bookingId, owner.getId(), true);
+        assertEquals(bookingId, itemService.getItemWithBookings(item.getId(), owner.getId()).getNextBooking().getId());
+        itemService.getItemView(item.getId(), booker.getId());
+
+        ticker.advance(Duration.ofMinutes(1));
+        statistics.clear();
+        itemService.getItemView(item.getId(), owner.getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // Запись владельца истекает в момент начала бронирования, остальные живут полный TTL.
+        ticker.advance(Duration.ofMinutes(2));
+        statistics.clear();
+        itemService.getItemView(item.getId(), booker.getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        itemService.getItemView(item.getId(), owner.getId());
+        assertTrue(statistics.getPrepareStatementCount() > 0);
+    }
+
+    @Test
+    void commentsInvalidateTheView() {
+        bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(LocalDateTime.now().minusDays(2))
+                .end(LocalDateTime.now().minusDays(1))
+                .status(BookingStatus.APPROVED)
+                .build());
+        assertEquals(0, itemService.getItemWithBookings(item.getId(), booker.getId()).getComments().size());
+        assertEquals(0, itemService.getItemWithBookings(item.getId(), owner.getId()).getComments().size());
+
+        itemService.addComment(item.getId(), CommentDto.builder().text("good").build(), booker.getId());
+
+        assertEquals(1, itemService.getItemWithBookings(item.getId(), booker.getId()).getComments().size());
+        assertEquals(1, itemService.getItemWithBookings(item.getId(), owner.getId()).getComments().size());
+    }
+
+    @Test
+    void itemUpdateInvalidatesTheView() {
+        itemService.getItemWithBookings(item.getId(), booker.getId());
+
+        itemService.update(item.getId(), new Item(null, "big tent", null, null, null, null), owner.getId());
+
+        assertEquals("big tent", itemService.getItemWithBookings(item.getId(), booker.getId()).getName());
+    }
+
+    @Test
+    void unchangedViewIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/items/{itemId}", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/items/{itemId}", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    @TestConfiguration
+    static class ManualTickerConfig {
+        @Bean
+        ManualTicker manualTicker() {
+            return new ManualTicker();
+        }
+    }
+
+    /**
+     * Часы кэша, которые двигаются только вызовом advance.
+     */
+    static final class ManualTicker implements Ticker {
+        private final AtomicLong nanos = new AtomicLong(System.nanoTime());
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+}
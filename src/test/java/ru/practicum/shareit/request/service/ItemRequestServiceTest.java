@@ -0,0 +1,142 @@
+package ru.practicum.shareit.request.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemAnswerDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestSlice;
+import ru.practicum.shareit.user.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ItemRequestServiceTest {
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User requestor;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        requestor = testData.user("requestor");
+        owner = testData.user("owner");
+    }
+
+    @Test
+    void requestIsReturnedWithItsAnswers() {
+        ItemRequestDto request = create(requestor, "need a ladder");
+        Item answer = answer(request, "ladder");
+
+        ItemRequestDto found = itemRequestService.getById(request.getId(), owner.getId());
+
+        assertEquals("need a ladder", found.getDescription());
+        assertEquals(request.getCreated(), found.getCreated());
+        assertEquals(1, found.getItems().size());
+        ItemAnswerDto item = found.getItems().get(0);
+        assertEquals(answer.getId(), item.getId());
+        assertEquals("ladder", item.getName());
+        assertEquals(owner.getId(), item.getOwnerId());
+    }
+
+    @Test
+    void ownFeedIsPagedByCursorFromNewest() {
+        List<Integer> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(create(requestor, "request " + i).getId());
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        ItemRequestSlice slice = itemRequestService.getOwn(requestor.getId(), 0, 2);
+        seen.addAll(ids(slice));
+        while (slice.hasNext()) {
+            slice = itemRequestService.getOwn(requestor.getId(), slice.getNext(), 2);
+            seen.addAll(ids(slice));
+        }
+
+        assertEquals(List.of(created.get(4), created.get(3), created.get(2), created.get(1), created.get(0)), seen);
+        assertEquals(ids(itemRequestService.getOwn(requestor.getId(), 2, 2)), seen.subList(2, 4));
+        assertNull(itemRequestService.getOwn(requestor.getId(), 4, 2).getNext());
+    }
+
+    @Test
+    void answersForWholePageAreLoadedInOneQuery() {
+        for (int i = 0; i < 4; i++) {
+            ItemRequestDto request = create(requestor, "request " + i);
+            answer(request, "first answer " + i);
+            answer(request, "second answer " + i);
+        }
+        statistics.clear();
+
+        ItemRequestSlice slice = itemRequestService.getOwn(requestor.getId(), 0, 10);
+
+        assertEquals(4, slice.getContent().size());
+        assertTrue(slice.getContent().stream().allMatch(request -> request.getItems().size() == 2));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void allFeedExcludesOwnRequests() {
+        ItemRequestDto own = create(requestor, "own");
+        ItemRequestDto foreign = create(owner, "foreign");
+
+        List<Integer> all = ids(itemRequestService.getAll(requestor.getId(), 0, 10));
+
+        assertTrue(all.contains(foreign.getId()));
+        assertFalse(all.contains(own.getId()));
+    }
+
+    @Test
+    void unknownUserRequestAndAnswerTargetAreRejected() {
+        ItemRequestDto request = create(requestor, "need a drill");
+
+        assertThrows(NotFoundException.class, () -> create(new User(-1L, "ghost", null), "lost"));
+        assertThrows(NotFoundException.class, () -> itemRequestService.getById(request.getId(), -1L));
+        assertThrows(NotFoundException.class, () -> itemRequestService.getById(-1, requestor.getId()));
+        assertThrows(NotFoundException.class, () -> itemRequestService.getAll(-1L, 0, 10));
+        ItemRequest missing = new ItemRequest();
+        missing.setId(-1);
+        assertThrows(NotFoundException.class,
+                () -> itemService.create(new Item(null, "drill", "description", true, null, missing), owner.getId()));
+    }
+
+    private ItemRequestDto create(User user, String description) {
+        return itemRequestService.create(new ItemRequestDto(0, description, null, null), user.getId());
+    }
+
+    private Item answer(ItemRequestDto request, String name) {
+        ItemRequest reference = new ItemRequest();
+        reference.setId(request.getId());
+        return itemService.create(new Item(null, name, "description", true, null, reference), owner.getId());
+    }
+
+    private static List<Integer> ids(ItemRequestSlice slice) {
+        return slice.getContent().stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+    }
+}
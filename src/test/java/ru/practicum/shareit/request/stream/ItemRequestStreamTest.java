@@ -0,0 +1,189 @@
+package ru.practicum.shareit.request.stream;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "shareit.requests.stream.heartbeat-interval=100ms")
+@AutoConfigureMockMvc
+class ItemRequestStreamTest {
+    private static final long WAIT_MILLIS = 5_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private HikariDataSource dataSource;
+
+    private User requestor;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        requestor = testData.user("requestor");
+        owner = testData.user("owner");
+    }
+
+    @Test
+    void newRequestsArePushedToOtherUsersOnly() throws Exception {
+        MockHttpServletResponse ownerStream = subscribe(owner, null);
+        MockHttpServletResponse requestorStream = subscribe(requestor, null);
+
+        ItemRequestDto created = create(requestor, "need a streamed ladder");
+
+        String events = await(ownerStream, body -> body.contains("need a streamed ladder"));
+        assertTrue(events.contains("event:" + ItemRequestStream.EVENT_NAME));
+        assertTrue(events.contains("\"id\":" + created.getId()));
+        assertEquals(String.valueOf(created.getId()), eventId(events, "need a streamed ladder"));
+        await(requestorStream, body -> body.contains(":heartbeat"));
+        assertFalse(requestorStream.getContentAsString().contains("need a streamed ladder"));
+    }
+
+    @Test
+    void reconnectingClientReceivesMissedRequests() throws Exception {
+        MockHttpServletResponse first = subscribe(owner, null);
+        create(requestor, "first missed");
+        String lastId = eventId(await(first, body -> body.contains("first missed")), "first missed");
+        create(requestor, "second missed");
+        create(requestor, "third missed");
+
+        MockHttpServletResponse resumed = subscribe(owner, Long.valueOf(lastId));
+
+        String events = await(resumed, body -> body.contains("third missed"));
+        assertTrue(events.contains("second missed"));
+        assertFalse(events.contains("first missed"));
+    }
+
+    @Test
+    void eventsMissingFromMemoryAreReadFromTheDatabase() throws Exception {
+        // Запросы, сохранённые в обход потока, - как созданные до перезапуска приложения.
+        ItemRequest seen = save(requestor, "seen before restart");
+        ItemRequest missed = save(requestor, "missed during restart");
+        save(owner, "own request");
+
+        MockHttpServletResponse resumed = subscribe(owner, (long) seen.getId());
+
+        String events = await(resumed, body -> body.contains("missed during restart"));
+        assertEquals(String.valueOf(missed.getId()), eventId(events, "missed during restart"));
+        assertFalse(events.contains("seen before restart"));
+        assertFalse(events.contains("own request"));
+    }
+
+    @Test
+    void subscribersDoNotHoldDatabaseConnections() throws Exception {
+        int subscribers = dataSource.getMaximumPoolSize() + 5;
+        for (int i = 0; i < subscribers; i++) {
+            subscribe(owner, null);
+        }
+
+        assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+        MockHttpServletResponse last = subscribe(owner, null);
+        create(requestor, "after many subscribers");
+        await(last, body -> body.contains("after many subscribers"));
+    }
+
+    @Test
+    void unknownUserCannotSubscribe() throws Exception {
+        mockMvc.perform(get("/requests/stream").header("X-Sharer-User-Id", -1L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void fullBufferDropsOldestFrames() throws Exception {
+        List<Set<DataWithMediaType>> sent = new ArrayList<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                sent.add(items);
+            }
+        };
+        Counter dropped = Counter.builder("dropped").register(new SimpleMeterRegistry());
+        StreamSubscriber subscriber = new StreamSubscriber(owner.getId(), emitter, 2, dropped);
+        Set<DataWithMediaType> first = SseEmitter.event().id("1").data("first").build();
+        Set<DataWithMediaType> second = SseEmitter.event().id("2").data("second").build();
+        Set<DataWithMediaType> third = SseEmitter.event().id("3").data("third").build();
+
+        assertTrue(subscriber.offer(first));
+        assertFalse(subscriber.offer(second));
+        assertFalse(subscriber.offer(third));
+        subscriber.drain();
+
+        assertEquals(List.of(second, third), sent);
+        assertEquals(1, dropped.count());
+        assertTrue(subscriber.offer(first));
+    }
+
+    private MockHttpServletResponse subscribe(User user, Long lastEventId) throws Exception {
+        var builder = get("/requests/stream").header("X-Sharer-User-Id", user.getId());
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return result.getResponse();
+    }
+
+    private static String await(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        String body = response.getContentAsString();
+        while (!condition.test(body) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = response.getContentAsString();
+        }
+        assertTrue(condition.test(body), body);
+        return body;
+    }
+
+    private static String eventId(String events, String description) {
+        String before = events.substring(0, events.indexOf(description));
+        int start = before.lastIndexOf("id:") + "id:".length();
+        return before.substring(start, before.indexOf('\n', start)).trim();
+    }
+
+    private ItemRequestDto create(User user, String description) {
+        return itemRequestService.create(new ItemRequestDto(0, description, null, null), user.getId());
+    }
+
+    private ItemRequest save(User user, String description) {
+        return itemRequestRepository.save(ItemRequest.builder()
+                .description(description)
+                .requestor(user)
+                .created(LocalDateTime.now())
+                .build());
+    }
+}